@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package direct;
+
+import java.util.*;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.MpscArrayQueue;
+
+/**
+ * collects the scored words from all the workers, separating how the words are aggregated
+ * from how they're delivered to the workers. add may be called from any thread (or fiber),
+ * best is called once all the workers are done
+ *
+ * @author nqzero
+ */
+interface Aggregator {
+    /** the names accepted by {@link #of} */
+    String [] kinds = { "sync", "local", "striped", "topk", "writer" };
+
+    void add(int key,String word);
+
+    /** the best num scores and their words, releasing any resources */
+    List<Entry<Integer, List<String>>> best(int num);
+
+    /** add all the words from scores */
+    default void addAll(Scores scores) {
+        scores.forEach((word,key) -> add(key,word));
+    }
+
+    /**
+     * a new aggregator
+     * @param kind one of {@link #kinds}
+     * @param factory an empty (not thread safe) accumulator
+     * @param numSave the number of best scores needed
+     * @param numProc the number of workers, used to size the stripes and the writer queue
+     */
+    static Aggregator of(String kind,Supplier<Scores> factory,int numSave,int numProc) {
+        switch (kind) {
+            case "sync": return new Synchronized(factory.get());
+            case "local": return new Confined(factory);
+            case "striped": return new Striped(factory,numProc);
+            case "topk": return new TopK(numSave);
+            case "writer": return new Writer(factory.get(),numProc);
+        }
+        throw new IllegalArgumentException("unknown aggregator: " + kind);
+    }
+
+    /** a single accumulator behind a lock, the original addWord */
+    static class Synchronized implements Aggregator {
+        final Scores scores;
+
+        Synchronized(Scores scores) {
+            this.scores = scores;
+        }
+
+        public synchronized void add(int key,String word) {
+            scores.add(key,word);
+        }
+
+        public synchronized List<Entry<Integer, List<String>>> best(int num) {
+            return scores.best(num);
+        }
+    }
+
+    /** each worker thread (or fiber) gets a private accumulator, merged in best */
+    static class Confined implements Aggregator {
+        final Supplier<Scores> factory;
+        final List<Scores> all = new ArrayList<>();
+        final ThreadLocal<Scores> local;
+
+        Confined(Supplier<Scores> factory) {
+            this.factory = factory;
+            local = ThreadLocal.withInitial(() -> {
+                Scores mine = factory.get();
+                synchronized (all) { all.add(mine); }
+                return mine;
+            });
+        }
+
+        public void add(int key,String word) {
+            local.get().add(key,word);
+        }
+
+        public List<Entry<Integer, List<String>>> best(int num) {
+            Scores scores = factory.get();
+            synchronized (all) {
+                for (Scores mine : all)
+                    scores.merge(mine);
+            }
+            return scores.best(num);
+        }
+    }
+
+    /** accumulators behind their own locks, picked by thread id, so workers rarely contend */
+    static class Striped implements Aggregator {
+        final Scores [] stripes;
+        final int mask;
+
+        Striped(Supplier<Scores> factory,int numProc) {
+            stripes = new Scores[Integer.highestOneBit(Math.max(1,2*numProc-1)) << 1];
+            mask = stripes.length-1;
+            for (int ii=0; ii < stripes.length; ii++)
+                stripes[ii] = factory.get();
+        }
+
+        public void add(int key,String word) {
+            Scores stripe = stripes[(int) Thread.currentThread().getId() & mask];
+            synchronized (stripe) {
+                stripe.add(key,word);
+            }
+        }
+
+        public List<Entry<Integer, List<String>>> best(int num) {
+            Scores scores = stripes[0];
+            for (int ii=1; ii < stripes.length; ii++)
+                synchronized (stripes[ii]) {
+                    scores.merge(stripes[ii]);
+                }
+            synchronized (scores) {
+                return scores.best(num);
+            }
+        }
+    }
+
+    /** the lock free bounded top-k */
+    static class TopK implements Aggregator {
+        final TopScores top;
+
+        TopK(int numSave) {
+            top = new TopScores(numSave);
+        }
+
+        public void add(int key,String word) {
+            top.add(key,word);
+        }
+
+        public List<Entry<Integer, List<String>>> best(int num) {
+            return top.best(num);
+        }
+    }
+
+    /**
+     * a single writer thread owns the accumulator, fed by the workers through an mpsc queue,
+     * so the workers never touch the accumulator and never take a lock. the writer drains the queue
+     * in batches, and the batch sizes and the fraction of time spent draining are accumulated
+     * across runs, see {@link #stats()}
+     */
+    static class Writer extends Thread implements Aggregator {
+        static final int batchLimit = 256;
+        static final LongAdder drains = new LongAdder();
+        static final LongAdder drained = new LongAdder();
+        static final LongAccumulator maxBatch = new LongAccumulator(Math::max,0);
+        static final LongAdder busyNanos = new LongAdder();
+        static final LongAdder totalNanos = new LongAdder();
+
+        final Scores scores;
+        final MpscArrayQueue<ShakespearePlaysScrabbleWithQueues.Count> queue;
+        final MessagePassingQueue.Consumer<ShakespearePlaysScrabbleWithQueues.Count> sink;
+        volatile boolean done;
+
+        Writer(Scores scores,int numProc) {
+            this.scores = scores;
+            queue = new MpscArrayQueue<>(Math.max(1024,256*numProc));
+            sink = count -> scores.add(count.num,count.word);
+            setDaemon(true);
+            start();
+        }
+
+        public void add(int key,String word) {
+            ShakespearePlaysScrabbleWithQueues.Count count = new ShakespearePlaysScrabbleWithQueues.Count(key,word);
+            while (! queue.offer(count))
+                Thread.yield();
+        }
+
+        public void run() {
+            long start = System.nanoTime(), busy = 0, num = 0, numDrains = 0;
+            int max = 0;
+            while (true) {
+                long t0 = System.nanoTime();
+                int batch = queue.drain(sink,batchLimit);
+                if (batch > 0) {
+                    busy += System.nanoTime() - t0;
+                    numDrains++;
+                    num += batch;
+                    max = Math.max(max,batch);
+                }
+                else if (done && queue.isEmpty())
+                    break;
+                else
+                    Thread.yield();
+            }
+            drains.add(numDrains);
+            drained.add(num);
+            maxBatch.accumulate(max);
+            busyNanos.add(busy);
+            totalNanos.add(System.nanoTime() - start);
+        }
+
+        public List<Entry<Integer, List<String>>> best(int num) {
+            done = true;
+            try {
+                join();
+            }
+            catch (InterruptedException ex) {
+                throw new RuntimeException(ex);
+            }
+            return scores.best(num);
+        }
+
+        /** the batch sizes and the utilization of the writer threads so far */
+        static String stats() {
+            long num = drained.sum(), numDrains = drains.sum(), total = totalNanos.sum();
+            return String.format("writer: %d words in %d drains, mean batch %.1f, max %d, busy %.1f%% of %.1f ms",
+                    num, numDrains, numDrains==0 ? 0.0 : 1.0*num/numDrains, maxBatch.get(),
+                    total==0 ? 0.0 : 100.0*busyNanos.sum()/total, total/1e6);
+        }
+    }
+}
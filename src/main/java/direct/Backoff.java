@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package direct;
+
+import java.util.concurrent.locks.LockSupport;
+import org.jctools.queues.MessagePassingQueue;
+
+/**
+ * what a producer or consumer does when its queue is full (or empty).
+ * idle is called with the number of consecutive idle calls and returns the next count
+ *
+ * @author nqzero
+ */
+public enum Backoff implements MessagePassingQueue.WaitStrategy {
+    /** busy spin, burning the core */
+    spin {
+        public int idle(int count) {
+            return count+1;
+        }
+    },
+    /** give the core to any other runnable thread */
+    yield {
+        public int idle(int count) {
+            Thread.yield();
+            return count+1;
+        }
+    },
+    /** sleep for the minimum the os allows, typically 50 microseconds */
+    park {
+        public int idle(int count) {
+            LockSupport.parkNanos(1);
+            return count+1;
+        }
+    },
+    /** spin, then yield, then park */
+    progressive {
+        public int idle(int count) {
+            if (count >= 200)
+                LockSupport.parkNanos(1);
+            else if (count >= 100)
+                Thread.yield();
+            return count+1;
+        }
+    };
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package direct;
+
+import java.util.concurrent.Phaser;
+
+/**
+ * worker threads that live for a whole trial, parked on a phaser between invocations.
+ * each invocation, every worker runs its task once, ie until the task sees its stop sentinel.
+ * the phaser also publishes anything written before start to the workers, and their results to join
+ *
+ * @author nqzero
+ */
+class Crew {
+    final Phaser phaser;
+    final Thread [] threads;
+    volatile boolean closed;
+
+    Crew(Runnable [] tasks) {
+        phaser = new Phaser(tasks.length+1);
+        threads = new Thread[tasks.length];
+        for (int ii=0; ii < tasks.length; ii++) {
+            Runnable task = tasks[ii];
+            threads[ii] = new Thread(() -> {
+                while (true) {
+                    phaser.arriveAndAwaitAdvance();
+                    if (closed) return;
+                    task.run();
+                    phaser.arriveAndAwaitAdvance();
+                }
+            });
+            threads[ii].setDaemon(true);
+            threads[ii].start();
+        }
+    }
+
+    /**
+     * release the workers to run their tasks, waiting for them all to reach the gate.
+     * a plain arrive could complete the phase with join's arrival if a worker is still on its way
+     */
+    void start() {
+        phaser.arriveAndAwaitAdvance();
+    }
+
+    /** wait for every worker to finish its task */
+    void join() {
+        phaser.arriveAndAwaitAdvance();
+    }
+
+    /** release the workers for the last time, and wait for them to exit */
+    void close() throws InterruptedException {
+        closed = true;
+        phaser.arriveAndAwaitAdvance();
+        for (Thread thread : threads)
+            thread.join();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package direct;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Supplier;
+
+/**
+ * a disruptor style ring buffer with a single producer and a pool of workers.
+ * the slots are allocated up front and reused, the producer publishes a slot by advancing the cursor,
+ * and each worker claims the next unprocessed sequence with a CAS on the shared work sequence,
+ * then reads the slot in place - nothing is dequeued.
+ * the producer can't wrap onto a slot until every worker has claimed past it
+ *
+ * @author nqzero
+ */
+class RingBuffer<E> {
+    static class LhsPadding {
+        long p1, p2, p3, p4, p5, p6, p7;
+    }
+    static class Value extends LhsPadding {
+        volatile long value;
+    }
+    /** a sequence padded onto its own cache line */
+    static class Sequence extends Value {
+        long p9, p10, p11, p12, p13, p14, p15;
+        static final AtomicLongFieldUpdater<Value> updater = AtomicLongFieldUpdater.newUpdater(Value.class,"value");
+
+        Sequence(long initial) {
+            value = initial;
+        }
+
+        long get() {
+            return value;
+        }
+
+        void set(long next) {
+            updater.lazySet(this,next);
+        }
+
+        boolean compareAndSet(long expected,long next) {
+            return updater.compareAndSet(this,expected,next);
+        }
+    }
+
+    final Object [] entries;
+    final int mask;
+    final Backoff backoff;
+    /** the last published sequence */
+    final Sequence cursor = new Sequence(-1);
+    /** the last sequence claimed by any worker */
+    final Sequence workSequence = new Sequence(-1);
+    /** the sequence each worker has processed up to */
+    final Sequence [] workers;
+    /** the producer's next sequence and its cached minimum of the gating sequences, both producer only */
+    long next = -1, gate = -1;
+
+    /**
+     * @param size the number of slots, rounded up to a power of 2
+     * @param factory the slot allocator, called size times
+     * @param numWorkers the number of workers
+     * @param backoff what the producer and workers do while waiting
+     */
+    RingBuffer(int size,Supplier<E> factory,int numWorkers,Backoff backoff) {
+        int cap = Integer.highestOneBit(Math.max(1,size-1)) << 1;
+        entries = new Object[cap];
+        for (int ii=0; ii < cap; ii++)
+            entries[ii] = factory.get();
+        mask = cap-1;
+        this.backoff = backoff;
+        workers = new Sequence[numWorkers];
+        for (int ii=0; ii < numWorkers; ii++)
+            workers[ii] = new Sequence(-1);
+    }
+
+    E get(long sequence) {
+        return (E) entries[(int) sequence & mask];
+    }
+
+    /** the minimum of the workers and the work sequence, ie the highest slot that may be reused */
+    long gate() {
+        long min = workSequence.get();
+        for (Sequence worker : workers)
+            min = Math.min(min,worker.get());
+        return min;
+    }
+
+    /** claim the next slot for the producer, waiting until no worker still needs it */
+    long next() {
+        long sequence = ++next, wrap = sequence - entries.length;
+        for (int idle = 0; wrap > gate; )
+            if ((gate = gate()) < wrap)
+                idle = backoff.idle(idle);
+        return sequence;
+    }
+
+    /** make the slot at sequence visible to the workers */
+    void publish(long sequence) {
+        cursor.set(sequence);
+    }
+
+    /**
+     * claim the next sequence for a worker, marking all its earlier claims as processed,
+     * and wait for the slot to be published
+     */
+    long claim(int worker) {
+        Sequence mine = workers[worker];
+        long sequence;
+        do {
+            sequence = workSequence.get() + 1;
+            mine.set(sequence - 1);
+        } while (! workSequence.compareAndSet(sequence - 1,sequence));
+        for (int idle = 0; cursor.get() < sequence; )
+            idle = backoff.idle(idle);
+        return sequence;
+    }
+
+    /**
+     * retire a worker, so it no longer gates the producer. a worker that exits without this
+     * holds back its last claim, which hangs the producer once the ring has wrapped onto it
+     */
+    void retire(int worker) {
+        workers[worker].set(Long.MAX_VALUE);
+    }
+}
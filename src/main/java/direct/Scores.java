@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package direct;
+
+import java.util.*;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Map.Entry;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * the words for each score, best score first. not thread safe
+ *
+ * @author nqzero
+ */
+abstract class Scores {
+    /** if positive, only keep this many of the best scores at any time */
+    final int numSave;
+
+    Scores(int numSave) {
+        this.numSave = numSave;
+    }
+
+    abstract void add(int key,String word);
+
+    /** call action with each of our words and its score, best first */
+    abstract void forEach(ObjIntConsumer<String> action);
+
+    /** add all of our words to target */
+    void addTo(Scores target) {
+        forEach((word,key) -> target.add(key,word));
+    }
+
+    /** the best num scores and their words */
+    abstract List<Entry<Integer, List<String>>> best(int num);
+
+    /** add all the words from other, which is left unchanged */
+    Scores merge(Scores other) {
+        other.addTo(this);
+        return this;
+    }
+
+    /** the original TreeMap, in reverse order */
+    static class Tree extends Scores {
+        TreeMap<Integer, List<String>> treemap = new TreeMap<Integer, List<String>>(Comparator.reverseOrder());
+
+        Tree(int numSave) {
+            super(numSave);
+        }
+
+        void add(int key,String word) {
+            List<String> list = list(key);
+            if (list != null)
+                list.add(word);
+        }
+
+        /** the list for key, creating it if needed, or null if key can't be one of the best scores */
+        List<String> list(int key) {
+            boolean big = numSave > 0 && treemap.size() >= numSave;
+            if (big && key < treemap.lastKey()) return null;
+
+            List<String> list = treemap.get(key) ;
+            if (list == null) {
+                list = new ArrayList<>() ;
+                if (big)
+                    treemap.pollLastEntry();
+                treemap.put(key, list) ;
+            }
+            return list;
+        }
+
+        void forEach(ObjIntConsumer<String> action) {
+            for (Entry<Integer, List<String>> e : treemap.entrySet())
+                for (String word : e.getValue())
+                    action.accept(word,e.getKey());
+        }
+
+        Scores merge(Scores other) {
+            if (! (other instanceof Tree))
+                return super.merge(other);
+            for (Entry<Integer, List<String>> e : ((Tree) other).treemap.entrySet()) {
+                List<String> list = list(e.getKey());
+                if (list != null)
+                    list.addAll(e.getValue());
+            }
+            return this;
+        }
+
+        List<Entry<Integer, List<String>>> best(int num) {
+            List<Entry<Integer, List<String>>> list = new ArrayList();
+            for (Entry<Integer, List<String>> e : treemap.entrySet()) {
+                if (list.size() >= num)
+                    break;
+                list.add(e);
+            }
+            return list;
+        }
+    }
+
+    /**
+     * an array of buckets indexed by score, sized from the maximum possible score.
+     * adding a word is an array append, with no boxing, comparator or rebalancing,
+     * and the best scores are found by scanning down from the top
+     */
+    static class Buckets extends Scores {
+        String [][] words;
+        int [] counts;
+        /** with numSave, the distinct scores currently kept, best first, padded with -1 */
+        int [] kept;
+
+        Buckets(int maxScore,int numSave) {
+            super(numSave);
+            words = new String[maxScore+1][];
+            counts = new int[maxScore+1];
+            if (numSave > 0) {
+                kept = new int[numSave];
+                Arrays.fill(kept,-1);
+            }
+        }
+
+        void add(int key,String word) {
+            if (key >= counts.length) {
+                // defensive, the max score should be an upper bound
+                words = Arrays.copyOf(words,key+1);
+                counts = Arrays.copyOf(counts,key+1);
+            }
+            if (kept != null && counts[key]==0 && ! keep(key))
+                return;
+            String [] bucket = words[key];
+            int num = counts[key];
+            if (bucket==null)
+                words[key] = bucket = new String[4];
+            else if (num==bucket.length)
+                words[key] = bucket = Arrays.copyOf(bucket,2*num);
+            bucket[num] = word;
+            counts[key] = num+1;
+        }
+
+        /** admit a new score into the kept scores, evicting the lowest if full */
+        boolean keep(int key) {
+            int last = kept.length-1;
+            if (key < kept[last]) return false;
+            if (kept[last] >= 0) {
+                counts[kept[last]] = 0;
+                words[kept[last]] = null;
+            }
+            int ii = last;
+            for (; ii > 0 && kept[ii-1] < key; ii--)
+                kept[ii] = kept[ii-1];
+            kept[ii] = key;
+            return true;
+        }
+
+        void forEach(ObjIntConsumer<String> action) {
+            for (int key=counts.length-1; key >= 0; key--)
+                for (int ii=0; ii < counts[key]; ii++)
+                    action.accept(words[key][ii],key);
+        }
+
+        List<Entry<Integer, List<String>>> best(int num) {
+            List<Entry<Integer, List<String>>> list = new ArrayList();
+            for (int key=counts.length-1; key >= 0 && list.size() < num; key--)
+                if (counts[key] > 0)
+                    list.add(new SimpleImmutableEntry<>(key,Arrays.asList(Arrays.copyOf(words[key],counts[key]))));
+            return list;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package direct;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.paumard.jdk8.bench.Util;
+
+/**
+ * the cost of loading the dictionary in a fresh jvm, as paid by every fork in init():
+ * parsing ospd.txt into a HashSet, or mapping the binary snapshot.
+ * each fork measures a single call, so the score is the cold start time.
+ * the snapshot is brought up to date in an unmeasured setup, so no fork pays for writing it
+ *
+ * @author nqzero
+ */
+@Fork(20)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=0)
+@Measurement(iterations=1)
+@State(Scope.Benchmark)
+public class ShakespearePlaysScrabbleColdStart {
+
+    @Setup(Level.Trial)
+    public void refresh() {
+        Util.refreshScrabbleSnapshot();
+    }
+
+    @Benchmark
+    public Set<String> text() {
+        return Util.readScrabbleWords();
+    }
+
+    @Benchmark
+    public Set<String> snapshot() {
+        return Util.mapScrabbleSnapshot();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package direct;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.*;
+import org.paumard.jdk8.bench.Util;
+import org.paumard.jdk8.bench.WordArena;
+
+/**
+ * load time of both corpora, with the Files.lines / HashSet loaders and with the memory mapped arena.
+ * the heap retained by each is printed once per fork
+ *
+ * @author nqzero
+ */
+@Fork(5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=12, time=1)
+@Measurement(iterations=12, time=1)
+@State(Scope.Benchmark)
+public class ShakespearePlaysScrabbleLoading {
+
+    @Setup
+    public void footprint() {
+        long sets = retained(() -> new Object[] { Util.readScrabbleWords(), Util.readShakespeareWords() });
+        long arenas = retained(() -> new Object[] { Util.mapScrabbleWords(), Util.mapShakespeareWords() });
+        WordArena dictionary = Util.mapScrabbleWords(), corpus = Util.mapShakespeareWords();
+        System.out.format("\nheap: sets %d KB, arenas %d KB (%d KB of arena and offsets)\n",
+                sets >> 10, arenas >> 10, (dictionary.bytes() + corpus.bytes()) >> 10);
+    }
+
+    static long used() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int ii=0; ii < 4; ii++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    static Object retain;
+
+    /** the approximate heap retained by the value of loader, measured across a full gc */
+    static long retained(Supplier<Object> loader) {
+        long before = used();
+        retain = loader.get();
+        long after = used();
+        retain = null;
+        return after - before;
+    }
+
+    @Benchmark
+    public Set<String> [] lines() {
+        return new Set[] { Util.readScrabbleWords(), Util.readShakespeareWords() };
+    }
+
+    @Benchmark
+    public WordArena [] mapped() {
+        return new WordArena[] { Util.mapScrabbleWords(), Util.mapShakespeareWords() };
+    }
+}
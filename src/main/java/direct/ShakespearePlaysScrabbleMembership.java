@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package direct;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.paumard.jdk8.bench.PerfectHashSet;
+import org.paumard.jdk8.bench.ShakespearePlaysScrabble;
+
+/**
+ * the dictionary membership check, the first filter applied to every shakespeare word,
+ * for each of the dictionary implementations
+ *
+ * @author nqzero
+ */
+@Fork(5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations=12, time=1)
+@Measurement(iterations=12, time=1)
+public class ShakespearePlaysScrabbleMembership extends ShakespearePlaysScrabble {
+    @Param({"hash","mph"})
+    public String kind;
+    Set<String> words;
+    String [] corpus;
+
+    @Setup
+    public void build() {
+        words = dictionary(scrabbleWords,kind);
+        corpus = shakespeareWords.toArray(new String[0]);
+        if (words instanceof PerfectHashSet)
+            System.out.format("\nmph: %.2f bytes per key\n",((PerfectHashSet) words).bytesPerKey());
+    }
+
+    @Benchmark
+    public int contains() {
+        int num = 0;
+        for (String word : corpus)
+            if (words.contains(word))
+                num++;
+        return num;
+    }
+}
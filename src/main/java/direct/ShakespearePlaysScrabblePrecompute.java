@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package direct;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.paumard.jdk8.bench.ScoreTable;
+import org.paumard.jdk8.bench.ShakespearePlaysScrabble;
+
+import static org.paumard.jdk8.bench.ScrabbleScorer.REJECTED;
+
+/**
+ * the cost of the precomputed score table, split into the one-time build (setup)
+ * and a pass over the corpus with and without the table (per run).
+ * the table pays for itself after build / (computed - precomputed) runs
+ *
+ * computed scores words the way the queues do, so it honors -Dkernel, -Dsuffix and -Dnh
+ *
+ * @author nqzero
+ */
+@Fork(5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations=12, time=1)
+@Measurement(iterations=12, time=1)
+public class ShakespearePlaysScrabblePrecompute extends ShakespearePlaysScrabble {
+    ShakespearePlaysScrabbleWithQueues.Direct queues;
+    ScoreTable table;
+
+    @Setup
+    public void build() {
+        queues = new ShakespearePlaysScrabbleWithQueues.Direct();
+        queues.scrabbleWords = scrabbleWords;
+        queues.configure();
+        table = queues.buildTable();
+    }
+
+    @Benchmark
+    public ScoreTable setup() {
+        return queues.buildTable();
+    }
+
+    @Benchmark
+    public int computed() {
+        int total = 0;
+        for (String word : shakespeareWords) {
+            int num = queues.score(word);
+            if (num != REJECTED)
+                total += num;
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int precomputed() {
+        int total = 0;
+        for (String word : shakespeareWords) {
+            int num = table.get(word);
+            if (num != REJECTED)
+                total += num;
+        }
+        return total;
+    }
+}
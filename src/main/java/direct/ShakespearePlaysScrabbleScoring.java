@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package direct;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.paumard.jdk8.bench.ShakespearePlaysScrabble;
+import org.paumard.jdk8.bench.ScrabbleScorer;
+
+import static org.paumard.jdk8.bench.ScrabbleScorer.REJECTED;
+
+/**
+ * score a single dictionary word per operation, comparing the LinkedHashMap histogram in getWord
+ * with the allocation-free kernel. run with "-prof gc" - gc.alloc.rate.norm is the allocation per word
+ *
+ * @author nqzero
+ */
+@Fork(5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations=12, time=1)
+@Measurement(iterations=12, time=1)
+public class ShakespearePlaysScrabbleScoring extends ShakespearePlaysScrabble {
+    String [] words;
+    int index;
+    ShakespearePlaysScrabbleWithQueues.Direct queues;
+    ScrabbleScorer scorer;
+
+    @Setup
+    public void filter() {
+        words = shakespeareWords.stream().filter(scrabbleWords::contains).toArray(String[]::new);
+        queues = new ShakespearePlaysScrabbleWithQueues.Direct();
+        queues.scrabbleWords = scrabbleWords;
+        queues.configure();
+        scorer = ScrabbleScorer.get();
+    }
+
+    String next() {
+        if (++index==words.length) index = 0;
+        return words[index];
+    }
+
+    @Benchmark
+    public Integer legacy() {
+        return queues.getWord(next());
+    }
+
+    @Benchmark
+    public int kernel() {
+        String word = next();
+        return scrabbleWords.contains(word) ? scorer.score(word) : REJECTED;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package direct;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.*;
+
+import static org.paumard.jdk8.bench.ScrabbleScorer.REJECTED;
+
+/**
+ * the queues on the jdk's Flow api (java 9 and later). each worker is a subscriber to its own
+ * SubmissionPublisher, fed round robin, with the buffer capped at capacity words and the subscriber
+ * asking for explicit credit, so the buffering is exact.
+ * a word that doesn't fit is a backpressure stall, counted and then submitted, blocking the producer
+ *
+ * @author nqzero
+ */
+public class ShakespearePlaysScrabbleWithFlow extends ShakespearePlaysScrabbleWithQueues.Base {
+    static final LongAdder offers = new LongAdder();
+    static final LongAdder stalls = new LongAdder();
+
+    /** the executor the subscribers run on, a ForkJoinPool or a fixed thread pool of numPool threads */
+    @Param({"forkjoin","fixed"})
+    public String executor = "forkjoin";
+    ExecutorService pool;
+
+    @Setup(Level.Trial)
+    public void start() {
+        pool = executor.equals("fixed")
+                ? Executors.newFixedThreadPool(numPool)
+                : new ForkJoinPool(numPool);
+    }
+
+    @TearDown
+    public void close() {
+        pool.shutdown();
+        long num = offers.sum();
+        System.out.format("\nflow: %d offers, %d stalls (%.2f%%), buffer of %d words per worker\n",
+                num, stalls.sum(), num==0 ? 0.0 : 100.0*stalls.sum()/num, capacity);
+    }
+
+    @Benchmark
+    public Object measureThroughput() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(numPool);
+        SubmissionPublisher<String> [] publishers = new SubmissionPublisher[numPool];
+        for (int ii=0; ii < publishers.length; ii++) {
+            publishers[ii] = new SubmissionPublisher<>(pool,capacity);
+            publishers[ii].subscribe(new Worker(done));
+        }
+        int target = 0;
+        long num = 0, stalled = 0;
+        for (String word : shakespeareWords) {
+            SubmissionPublisher<String> publisher = publishers[target = inc(target,publishers.length)];
+            num++;
+            if (publisher.offer(word,null) < 0) {
+                stalled++;
+                publisher.submit(word);
+            }
+        }
+        for (SubmissionPublisher<String> publisher : publishers)
+            publisher.close();
+        done.await();
+        offers.add(num);
+        stalls.add(stalled);
+        return getList();
+    }
+
+    /** requests credit for half the buffer at a time, so the publisher never holds more than capacity words */
+    class Worker implements Flow.Subscriber<String> {
+        final CountDownLatch done;
+        final int credit = Math.max(1,capacity/2);
+        Flow.Subscription subscription;
+        int received;
+
+        Worker(CountDownLatch done) {
+            this.done = done;
+        }
+
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(2*credit);
+        }
+
+        public void onNext(String word) {
+            int num = score(word);
+            if (num != REJECTED)
+                addWord(num,word);
+            if (++received==credit) {
+                received = 0;
+                subscription.request(credit);
+            }
+        }
+
+        public void onError(Throwable ex) {
+            ex.printStackTrace();
+            done.countDown();
+        }
+
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+
+    void beforeMain() {
+        start();
+    }
+
+    void afterMain() {
+        close();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new ShakespearePlaysScrabbleWithFlow().doMain();
+    }
+}
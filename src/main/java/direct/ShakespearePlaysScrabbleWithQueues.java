@@ -26,12 +26,20 @@ import com.conversantmedia.util.concurrent.DisruptorBlockingQueue;
 import com.conversantmedia.util.concurrent.PushPullBlockingQueue;
 import com.conversantmedia.util.concurrent.SpinPolicy;
 import io.reactivex.Flowable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -40,11 +48,17 @@ import kilim.MailboxSPSC;
 import kilim.Pausable;
 import kilim.Scheduler;
 import kilim.Task;
+import org.jctools.queues.MessagePassingQueue;
 import org.jctools.queues.SpmcArrayQueue;
 import org.jctools.queues.SpscArrayQueue;
 
 import org.openjdk.jmh.annotations.*;
+import org.paumard.jdk8.bench.LetterSignature;
 import org.paumard.jdk8.bench.ShakespearePlaysScrabble;
+import org.paumard.jdk8.bench.ScoreTable;
+import org.paumard.jdk8.bench.ScrabbleScorer;
+
+import static org.paumard.jdk8.bench.ScrabbleScorer.REJECTED;
 
 /**
  * Shakespeare plays Scrabble, using various (theatrical ;) queues with backpressure
@@ -66,27 +80,46 @@ import org.paumard.jdk8.bench.ShakespearePlaysScrabble;
 @Warmup(iterations=12, time=1)
 @Measurement(iterations=12, time=1)
 public abstract class ShakespearePlaysScrabbleWithQueues extends ShakespearePlaysScrabble {
-    static int numProc = Runtime.getRuntime().availableProcessors();
-    static int size = 1<<10;
-    static boolean fast;
-    static String suffix;
-    static int numHash = 1000;
-    TreeMap<Integer, List<String>> treemap;
+    static boolean kernel;
+    static boolean precompute;
+    static boolean buckets;
+    // the workload and sizing are params, so a single jmh run can sweep them, eg -p size=8,10,12
+    //   the initializers take the -D flags of the same name, for main
+    /** the number of cpus to assume, 0 for all of them */
+    @Param({"0"})
+    public int np = Integer.getInteger("np",0);
+    /** the number of bits of buffer to use */
+    @Param({"10"})
+    public int size = Integer.getInteger("size",10);
+    /** only store the 3 best scores at any time */
+    @Param({"false"})
+    public boolean fast = System.getProperty("fast") != null;
+    /** for words matching this suffix, hash the word and modify the score. none to disable */
+    @Param({"none"})
+    public String suffix = System.getProperty("suffix","none");
+    /** the number of sha-256 hashes to perform for a suffix match */
+    @Param({"1000"})
+    public int nh = Integer.getInteger("nh",1000);
+    /** how the scored words are collected from the workers, one of Aggregator.kinds. sweep with -p aggregator=... */
+    @Param({"sync"})
+    public String aggregator = "sync";
+    // derived from the params by configure
+    int numProc;
+    int numPool;
+    int capacity;
+    String hashSuffix;
+    Aggregator results;
+    ScoreTable table;
+    int maxScore;
     int smallest;
     int numSave = 3;
     Count lastCount = new Count(0, null);
 
     static {
-        try { numProc = Integer.parseInt(System.getProperty("np")); }
-        catch (Exception ex) {}
-        try { size = 1<<Integer.parseInt(System.getProperty("size")); }
-        catch (Exception ex) {}
-        fast = System.getProperty("fast") != null;
-        suffix = System.getProperty("suffix");
-        try { numHash = Integer.parseInt(System.getProperty("nh")); }
-        catch (Exception ex) {}
-    }
-    static int numPool = Math.max(1,numProc-1);
+        kernel = System.getProperty("kernel") != null;
+        precompute = System.getProperty("precompute") != null;
+        buckets = System.getProperty("buckets") != null;
+    }
     static ThreadLocal<MessageDigest> digest = new ThreadLocal();
     static MessageDigest digest() {
         try {
@@ -97,11 +130,11 @@ public abstract class ShakespearePlaysScrabbleWithQueues extends ShakespearePlay
     }
     int hash(String word) {
         int score = 0;
-        if (numHash > 0 && suffix != null && word.endsWith(suffix)) {
+        if (nh > 0 && hashSuffix != null && word.endsWith(hashSuffix)) {
             MessageDigest digest2 = digest.get();
             if (digest2==null)
                 digest.set(digest2 = digest());
-            for (int ii=0; ii < numHash; ii++) {
+            for (int ii=0; ii < nh; ii++) {
                 byte[] hash = digest2.digest(word.getBytes(StandardCharsets.UTF_8));
                 score += hash[0] < 32 ? 1:0;
                 word += "a";
@@ -115,15 +148,68 @@ public abstract class ShakespearePlaysScrabbleWithQueues extends ShakespearePlay
     }
     public static abstract class Base extends ShakespearePlaysScrabbleWithQueues implements Jmh {
         void doMain() throws Exception {
+            aggregator = System.getProperty("aggregator",fast ? "topk" : "sync");
             init();
+            prepare();
+            beforeMain();
             setup();
             System.out.println(measureThroughput());
+            afterMain();
         }
+
+        /** for main, run the trial fixtures of a subclass, which may depend on prepare */
+        void beforeMain() throws Exception {}
+
+        /** for main, run the trial teardowns of a subclass */
+        void afterMain() throws Exception {}
+    }
+
+    /**
+     * score the entire dictionary, including the hash bonus, so that the hot path is a single probe
+     */
+    ScoreTable buildTable() {
+        return new ScoreTable(scrabbleWords,word -> {
+            int hash = hash(word);
+            int sum2 = ScrabbleScorer.get().score(word);
+            return sum2==REJECTED ? REJECTED : sum2 + hash;
+        });
+    }
+
+    /** derive the working values from the params, before anything uses them */
+    void configure() {
+        numProc = np > 0 ? np : Runtime.getRuntime().availableProcessors();
+        numPool = Math.max(1,numProc-1);
+        capacity = 1<<size;
+        hashSuffix = suffix.isEmpty() || suffix.equals("none") ? null : suffix;
+    }
+
+    // runs after ShakespearePlaysScrabble.init, jmh calls superclass fixtures first
+    @Setup(Level.Trial)
+    public void prepare() {
+        configure();
+        if (precompute)
+            table = buildTable();
+        int maxLength = 0;
+        for (String word : scrabbleWords)
+            maxLength = Math.max(maxLength,word.length());
+        maxScore = ScrabbleScorer.maxScore(maxLength) + (hashSuffix==null ? 0 : Math.max(0,nh));
+    }
+
+    @TearDown
+    public void reportAggregator() {
+        if (aggregator.equals("writer"))
+            System.out.println("\n" + Aggregator.Writer.stats());
+    }
+
+    /** an empty accumulator, score-indexed buckets or a TreeMap */
+    Scores newScores() {
+        int num = fast ? numSave : 0;
+        return buckets ? new Scores.Buckets(maxScore,num) : new Scores.Tree(num);
     }
 
     @Setup(Level.Invocation)
     public void setup() {
-        treemap = new TreeMap<Integer, List<String>>(Comparator.reverseOrder());
+        results = Aggregator.of(aggregator,this::newScores,numSave,numProc);
     }
 
     static class Count {
@@ -142,7 +228,7 @@ public abstract class ShakespearePlaysScrabbleWithQueues extends ShakespearePlay
         SpmcArrayQueue<String> queue;
         @Benchmark
         public Object measureThroughput() throws InterruptedException {
-            queue = new SpmcArrayQueue(size);
+            queue = new SpmcArrayQueue(capacity);
             Runner [] actors = new Runner[numPool];
             for (int ii=0; ii < actors.length; ii++)
                 (actors[ii] = new Runner()).start();
@@ -159,8 +245,8 @@ public abstract class ShakespearePlaysScrabbleWithQueues extends ShakespearePlay
         class Runner extends Thread {
             public void run() {
                 for (String word; (word = queue.poll()) != stop;) {
-                    Integer num = getWord(word);
-                    if (num != null)
+                    int num = score(word);
+                    if (num != REJECTED)
                         addWord(num,word);
                 }
             }
@@ -186,19 +272,236 @@ public abstract class ShakespearePlaysScrabbleWithQueues extends ShakespearePlay
             return getList();
         }
         class Runner extends Thread {
-            SpscArrayQueue<String> queue = new SpscArrayQueue(size);
+            SpscArrayQueue<String> queue = new SpscArrayQueue(capacity);
             public void run() {
                 for (String word; (word = queue.poll()) != stop;) {
-                    Integer num = getWord(word);
-                    if (num != null)
+                    int num = score(word);
+                    if (num != REJECTED)
                         addWord(num,word);
                 }
             }
         }
     }
 
+    /** Jctools with the runners started once per trial and parked between invocations */
+    public static class JctoolsCrew extends Jctools {
+        Runner [] actors;
+        Crew crew;
+
+        @Setup(Level.Trial)
+        public void hire() {
+            actors = new Runner[numPool];
+            for (int ii=0; ii < actors.length; ii++)
+                actors[ii] = new Runner();
+            crew = new Crew(actors);
+        }
+
+        @TearDown
+        public void fire() throws InterruptedException {
+            crew.close();
+        }
+
+        void beforeMain() {
+            hire();
+        }
+
+        void afterMain() throws InterruptedException {
+            fire();
+        }
+
+        @Benchmark
+        public Object measureThroughput() throws InterruptedException {
+            crew.start();
+            int target = 0;
+            for (String word : shakespeareWords) {
+                target = inc(target,actors.length);
+                while (!actors[target].queue.offer(word));
+            }
+            for (int ii=0; ii < actors.length; ii++)
+                while (! actors[ii].queue.offer(stop));
+
+            crew.join();
+            return getList();
+        }
+    }
+
+    /** JctoolsFair with the runners started once per trial and parked between invocations */
+    public static class JctoolsFairCrew extends JctoolsFair {
+        Crew crew;
+
+        @Setup(Level.Trial)
+        public void hire() {
+            Runner [] actors = new Runner[numPool];
+            for (int ii=0; ii < actors.length; ii++)
+                actors[ii] = new Runner();
+            crew = new Crew(actors);
+        }
+
+        @TearDown
+        public void fire() throws InterruptedException {
+            crew.close();
+        }
+
+        void beforeMain() {
+            hire();
+        }
+
+        void afterMain() throws InterruptedException {
+            fire();
+        }
+
+        @Benchmark
+        public Object measureThroughput() throws InterruptedException {
+            queue = new SpmcArrayQueue(capacity);
+            crew.start();
+            for (String word : shakespeareWords)
+                while (! queue.offer(word));
+            for (int ii=0; ii < numPool; ii++)
+                while (! queue.offer(stop));
+
+            crew.join();
+            queue = null;
+            return getList();
+        }
+    }
+
+    /**
+     * Jctools over a range of thread counts, crossed with the aggregators,
+     * to show the contention on addWord. these params replace np and aggregator
+     */
+    public static class Scaling extends Jctools {
+        @Param({"2","4","8","16"})
+        public int cpus = 4;
+        @Param({"sync","local","striped","topk","writer"})
+        public String kind = "sync";
+
+        void configure() {
+            np = cpus;
+            aggregator = kind;
+            super.configure();
+        }
+    }
+
+    /**
+     * the jctools queues with batched fill and drain, backing off on both sides when the queue is
+     * full or empty instead of spinning. the cpu time of the producer and the workers is reported
+     * as secondary results, in microseconds summed over each iteration
+     */
+    public static abstract class Drained extends Base {
+        static final int limit = 64;
+        static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        @Param({"spin","yield","park","progressive"})
+        public Backoff backoff = Backoff.valueOf(System.getProperty("backoff","progressive"));
+        volatile boolean finished;
+        long producerNanos;
+        LongAdder workerNanos;
+
+        @AuxCounters(AuxCounters.Type.EVENTS)
+        @State(Scope.Thread)
+        public static class CpuTime {
+            public long producerMicros;
+            public long workerMicros;
+
+            @Setup(Level.Iteration)
+            public void clear() {
+                producerMicros = workerMicros = 0;
+            }
+        }
+
+        /** the distinct queues, worker ii drains queues[ii % queues.length] */
+        abstract MessagePassingQueue<String> [] queues();
+
+        @Benchmark
+        public Object measureThroughput(CpuTime cpu) throws InterruptedException {
+            Object list = measureThroughput();
+            cpu.producerMicros += producerNanos/1000;
+            cpu.workerMicros += workerNanos.sum()/1000;
+            return list;
+        }
+
+        public Object measureThroughput() throws InterruptedException {
+            long start = threads.getCurrentThreadCpuTime();
+            finished = false;
+            workerNanos = new LongAdder();
+            MessagePassingQueue<String> [] queues = queues();
+            Runner [] actors = new Runner[numPool];
+            for (int ii=0; ii < actors.length; ii++)
+                (actors[ii] = new Runner(queues[ii % queues.length])).start();
+            Iterator<String> iter = shakespeareWords.iterator();
+            MessagePassingQueue.Supplier<String> next = iter::next;
+            int left = shakespeareWords.size(), target = 0, idle = 0;
+            while (left > 0) {
+                int num = queues[target].fill(next,Math.min(limit,left));
+                if (num > 0) {
+                    left -= num;
+                    idle = 0;
+                    target = inc(target,queues.length);
+                }
+                else
+                    idle = backoff.idle(idle);
+            }
+            finished = true;
+            producerNanos = threads.getCurrentThreadCpuTime() - start;
+
+            for (Runner actor : actors)
+                actor.join();
+            return getList();
+        }
+        class Runner extends Thread {
+            final MessagePassingQueue<String> queue;
+            final MessagePassingQueue.Consumer<String> sink = word -> {
+                int num = score(word);
+                if (num != REJECTED)
+                    addWord(num,word);
+            };
+            Runner(MessagePassingQueue<String> queue) {
+                this.queue = queue;
+            }
+            public void run() {
+                for (int idle = 0;;) {
+                    if (queue.drain(sink,limit) > 0)
+                        idle = 0;
+                    // every fill happens before finished is set, so empty now means done
+                    else if (finished) {
+                        if (queue.isEmpty()) break;
+                    }
+                    else
+                        idle = backoff.idle(idle);
+                }
+                workerNanos.add(threads.getCurrentThreadCpuTime());
+            }
+        }
+    }
+
+    /** Jctools with fill and drain, an spsc queue per worker filled round robin */
+    public static class JctoolsDrain extends Drained {
+        MessagePassingQueue<String> [] queues() {
+            MessagePassingQueue<String> [] queues = new MessagePassingQueue[numPool];
+            for (int ii=0; ii < queues.length; ii++)
+                queues[ii] = new SpscArrayQueue<>(capacity);
+            return queues;
+        }
+    }
+
+    /** JctoolsFair with fill and drain, a single spmc queue shared by the workers */
+    public static class JctoolsFairDrain extends Drained {
+        MessagePassingQueue<String> [] queues() {
+            return new MessagePassingQueue[] { new SpmcArrayQueue<>(capacity) };
+        }
+    }
+
     public static class Conversant extends Base {
-        private DisruptorBlockingQueue<String> queue = new DisruptorBlockingQueue<>(size, SpinPolicy.WAITING);
+        DisruptorBlockingQueue<String> queue;
+
+        @Setup(Level.Trial)
+        public void allocate() {
+            queue = new DisruptorBlockingQueue<>(capacity, SpinPolicy.WAITING);
+        }
+
+        void beforeMain() {
+            allocate();
+        }
+
         @Benchmark
         public Object measureThroughput() throws InterruptedException {
             Runner [] actors = new Runner[numPool];
@@ -216,14 +519,104 @@ public abstract class ShakespearePlaysScrabbleWithQueues extends ShakespearePlay
         class Runner extends Thread {
             public void run() {
                 for (String word; (word = queue.poll()) != stop;) {
-                    Integer num = getWord(word);
-                    if (num != null)
+                    int num = score(word);
+                    if (num != REJECTED)
+                        addWord(num,word);
+                }
+            }
+        }
+    }
+
+    /**
+     * a disruptor style work pool on the in-project RingBuffer, ie the idea behind Conversant
+     * without the BlockingQueue api - slots are reused in place and workers claim sequences with a CAS
+     */
+    public static class Ring extends Base {
+        @Param({"spin","yield","park","progressive"})
+        public Backoff backoff = Backoff.valueOf(System.getProperty("backoff","progressive"));
+
+        static class Slot {
+            String word;
+        }
+
+        @Benchmark
+        public Object measureThroughput() throws InterruptedException {
+            RingBuffer<Slot> ring = new RingBuffer<>(capacity,Slot::new,numPool,backoff);
+            Runner [] actors = new Runner[numPool];
+            for (int ii=0; ii < actors.length; ii++)
+                (actors[ii] = new Runner(ring,ii)).start();
+            for (String word : shakespeareWords) {
+                long sequence = ring.next();
+                ring.get(sequence).word = word;
+                ring.publish(sequence);
+            }
+            for (int ii=0; ii < actors.length; ii++) {
+                long sequence = ring.next();
+                ring.get(sequence).word = stop;
+                ring.publish(sequence);
+            }
+
+            for (Runner actor : actors)
+                actor.join();
+            return getList();
+        }
+        class Runner extends Thread {
+            final RingBuffer<Slot> ring;
+            final int index;
+            Runner(RingBuffer<Slot> ring,int index) {
+                this.ring = ring;
+                this.index = index;
+            }
+            public void run() {
+                for (String word; (word = ring.get(ring.claim(index)).word) != stop;) {
+                    int num = score(word);
+                    if (num != REJECTED)
                         addWord(num,word);
                 }
+                ring.retire(index);
             }
         }
     }
 
+    /** Conversant with the runners started once per trial and parked between invocations */
+    public static class ConversantCrew extends Conversant {
+        Crew crew;
+
+        @Setup(Level.Trial)
+        public void hire() {
+            Runner [] actors = new Runner[numPool];
+            for (int ii=0; ii < actors.length; ii++)
+                actors[ii] = new Runner();
+            crew = new Crew(actors);
+        }
+
+        @TearDown
+        public void fire() throws InterruptedException {
+            crew.close();
+        }
+
+        void beforeMain() {
+            super.beforeMain();
+            hire();
+        }
+
+        void afterMain() throws InterruptedException {
+            fire();
+        }
+
+        @Benchmark
+        public Object measureThroughput() throws InterruptedException {
+            crew.start();
+            for (String word : shakespeareWords)
+                queue.put(word);
+            for (int ii=0; ii < numPool; ii++)
+                queue.put(stop);
+
+            crew.join();
+            return getList();
+        }
+    }
+
     public static class Push extends Base {
         @Benchmark
         public Object measureThroughput() throws InterruptedException {
@@ -242,24 +635,64 @@ public abstract class ShakespearePlaysScrabbleWithQueues extends ShakespearePlay
         }
         class Runner extends Thread {
             private PushPullBlockingQueue<String> queue =
-                    new PushPullBlockingQueue<>(size, SpinPolicy.WAITING);
+                    new PushPullBlockingQueue<>(capacity, SpinPolicy.WAITING);
             ArrayList<Count> list = new ArrayList<>();
             public void run() {
                 for (String word; (word = queue.poll()) != stop;) {
-                    Integer num = getWord(word);
-                    if (num != null)
+                    int num = score(word);
+                    if (num != REJECTED)
                         addWord(num,word);
                 }
             }
         }
     }
     
+    /** Push with the runners started once per trial and parked between invocations */
+    public static class PushCrew extends Push {
+        Runner [] actors;
+        Crew crew;
+
+        @Setup(Level.Trial)
+        public void hire() {
+            actors = new Runner[numPool];
+            for (int ii=0; ii < actors.length; ii++)
+                actors[ii] = new Runner();
+            crew = new Crew(actors);
+        }
+
+        @TearDown
+        public void fire() throws InterruptedException {
+            crew.close();
+        }
+
+        void beforeMain() {
+            hire();
+        }
+
+        void afterMain() throws InterruptedException {
+            fire();
+        }
+
+        @Benchmark
+        public Object measureThroughput() throws InterruptedException {
+            crew.start();
+            int target = 0;
+            for (String word : shakespeareWords)
+                actors[target = inc(target,actors.length)].queue.put(word);
+            for (int ii=0; ii < actors.length; ii++)
+                actors[ii].queue.put(stop);
+
+            crew.join();
+            return getList();
+        }
+    }
+    
     public static class Direct extends Base {
         @Benchmark
         public Object measureThroughput() {
             for (String word : shakespeareWords) {
-                Integer num = getWord(word);
-                if (num != null)
+                int num = score(word);
+                if (num != REJECTED)
                     addWord(num, word);
             }
             return getList();
@@ -275,8 +708,8 @@ public abstract class ShakespearePlaysScrabbleWithQueues extends ShakespearePlay
                     .parallel()
                     .runOn(io.reactivex.schedulers.Schedulers.computation())
                     .map(word -> {
-                        Integer num = getWord(word);
-                        if (num != null)
+                        int num = score(word);
+                        if (num != REJECTED)
                             addWord(num, word);
                         return 0;
                     })
@@ -285,6 +718,31 @@ public abstract class ShakespearePlaysScrabbleWithQueues extends ShakespearePlay
             return getList();
         }
     }
+    /**
+     * the RxJava pipeline reduced per rail into a private accumulator, then the rails merged pairwise,
+     * so there's no shared lock and no dummy emissions. the merged rails are the result,
+     * so there's no aggregator
+     */
+    public static class RxJavaReduce extends Base {
+        @Setup(Level.Invocation)
+        public void setup() {}
+
+        @Benchmark
+        public Object measureThroughput() {
+            Scores all = Flowable.fromIterable(Source::new)
+                    .parallel()
+                    .runOn(io.reactivex.schedulers.Schedulers.computation())
+                    .reduce(this::newScores,(rail,word) -> {
+                        int num = score(word);
+                        if (num != REJECTED)
+                            rail.add(num,word);
+                        return rail;
+                    })
+                    .reduce(Scores::merge)
+                    .blockingSingle();
+            return all.best(numSave);
+        }
+    }
     public static class Stream8 extends Base {
         @Benchmark
         public Object measureThroughput() {
@@ -294,14 +752,79 @@ public abstract class ShakespearePlaysScrabbleWithQueues extends ShakespearePlay
             Stream<String> unsplittable =
                 StreamSupport.stream(Spliterators.spliteratorUnknownSize(new Source(),0),true);
             unsplittable.forEach(word -> {
-                Integer num = getWord(word);
-                if (num!=null)
+                int num = score(word);
+                if (num != REJECTED)
                     addWord(num,word);
             });
             return getList();
         }
     }
 
+    /**
+     * a queue free reference - the corpus is snapshot into an array and scored by a fork join pool,
+     * splitting down to threshold words. each leaf keeps only the best scores, merged up the tree,
+     * and the root is the result, so there's no aggregator
+     */
+    public static class ForkJoin extends Base {
+        @Param({"256","1024","4096"})
+        public int threshold = 1024;
+        String [] corpus;
+        ForkJoinPool pool;
+
+        @Setup(Level.Trial)
+        public void snapshot() {
+            corpus = shakespeareWords.toArray(new String[0]);
+            pool = new ForkJoinPool(numProc);
+        }
+
+        @TearDown
+        public void close() {
+            pool.shutdown();
+        }
+
+        void beforeMain() {
+            snapshot();
+        }
+
+        void afterMain() {
+            close();
+        }
+
+        @Setup(Level.Invocation)
+        public void setup() {}
+
+        @Benchmark
+        public Object measureThroughput() {
+            return pool.invoke(new Split(0,corpus.length)).best(numSave);
+        }
+
+        class Split extends RecursiveTask<Scores> {
+            final int start, end;
+
+            Split(int start,int end) {
+                this.start = start;
+                this.end = end;
+            }
+
+            protected Scores compute() {
+                if (end - start <= threshold) {
+                    Scores leaf = buckets ? new Scores.Buckets(maxScore,numSave) : new Scores.Tree(numSave);
+                    for (int ii=start; ii < end; ii++) {
+                        int num = score(corpus[ii]);
+                        if (num != REJECTED)
+                            leaf.add(num,corpus[ii]);
+                    }
+                    return leaf;
+                }
+                int mid = (start + end) >>> 1;
+                Split right = new Split(mid,end);
+                right.fork();
+                Scores left = new Split(start,mid).compute();
+                return left.merge(right.join());
+            }
+        }
+    }
+
     class Source implements Iterator<String> {
         Iterator<String> iter = shakespeareWords.iterator();
         public boolean hasNext() { return iter.hasNext(); }
@@ -331,12 +854,12 @@ public abstract class ShakespearePlaysScrabbleWithQueues extends ShakespearePlay
         }
 
         class Worker extends Fiber<Void> {
-            Channel<String> box = Channels.newChannel(size,OverflowPolicy.BACKOFF,true,true);
+            Channel<String> box = Channels.newChannel(capacity,OverflowPolicy.BACKOFF,true,true);
 
             protected Void run() throws SuspendExecution,InterruptedException {
                 for (String word; (word = box.receive()) != stop;) {
-                    Integer num = getWord(word);
-                    if (num != null)
+                    int num = score(word);
+                    if (num != REJECTED)
                         addWord(num,word);
                 }
                 return null;
@@ -348,7 +871,7 @@ public abstract class ShakespearePlaysScrabbleWithQueues extends ShakespearePlay
         Channel<String> box;
         @Benchmark
         public Object measureThroughput() throws InterruptedException {
-            box = Channels.newChannel(size,OverflowPolicy.BACKOFF,true,false);
+            box = Channels.newChannel(capacity,OverflowPolicy.BACKOFF,true,false);
             Worker [] actors = new Worker[numProc];
             for (int ii=0; ii < actors.length; ii++)
                 (actors[ii] = new Worker()).start();
@@ -372,8 +895,8 @@ public abstract class ShakespearePlaysScrabbleWithQueues extends ShakespearePlay
 
             protected Void run() throws SuspendExecution,InterruptedException {
                 for (String word; (word = box.receive()) != stop;) {
-                    Integer num = getWord(word);
-                    if (num != null)
+                    int num = score(word);
+                    if (num != REJECTED)
                         addWord(num,word);
                 }
                 return null;
@@ -408,12 +931,12 @@ public abstract class ShakespearePlaysScrabbleWithQueues extends ShakespearePlay
         }
 
         class Worker extends Task<Void> {
-            MailboxSPSC<String> box = new MailboxSPSC(size);
+            MailboxSPSC<String> box = new MailboxSPSC(capacity);
 
             public void execute() throws Pausable {
                 for (String word; (word = box.get()) != stop;) {
-                    Integer num = getWord(word);
-                    if (num != null)
+                    int num = score(word);
+                    if (num != REJECTED)
                         addWord(num,word);
                 }
             }
@@ -426,9 +949,9 @@ public abstract class ShakespearePlaysScrabbleWithQueues extends ShakespearePlay
         }
         @Benchmark
         public Object measureThroughput() throws InterruptedException {
-            cast(shakespeareWords,word -> {
-                Integer num = getWord(word);
-                if (num != null)
+            cast(shakespeareWords,numProc,capacity,word -> {
+                int num = score(word);
+                if (num != REJECTED)
                     addWord(num,word);
             });
             return getList();
@@ -442,10 +965,8 @@ public abstract class ShakespearePlaysScrabbleWithQueues extends ShakespearePlay
                 actors.join();
             }).joinb();
         }
-        static <UU> void cast(Iterable<UU> able,Consumer<UU> action) {
-            // fixme - constants are used here only for benchmarking
-            //         api may need to expose those arguments or just use sane defaults
-            Actors<UU> actors = new Actors(numProc,size,action);
+        static <UU> void cast(Iterable<UU> able,int num,int size,Consumer<UU> action) {
+            Actors<UU> actors = new Actors(num,size,action);
             Task.fork(() -> {
                 for (UU val : able)
                     actors.put(val);
@@ -513,9 +1034,369 @@ public abstract class ShakespearePlaysScrabbleWithQueues extends ShakespearePlay
         }
     }
 
+    /**
+     * the words are handed over in chunks of batch words, amortizing the volatile write, wakeup
+     * and cache line transfer of each message. queues hold capacity/batch chunks,
+     * so the buffering is still about capacity words
+     */
+    public static abstract class Batched extends Base {
+        @Param({"16","64","256"})
+        public int batch = 64;
+        String [] stopChunk = new String[0];
+
+        /** the size in chunks of a queue that should hold about capacity words */
+        int chunks() {
+            return Math.max(1,capacity/batch);
+        }
+
+        /** score the words of a chunk, which may be null (an empty poll) or padded with nulls */
+        void process(String [] chunk) {
+            if (chunk==null) return;
+            for (String word : chunk) {
+                if (word==null) return;
+                int num = score(word);
+                if (num != REJECTED)
+                    addWord(num,word);
+            }
+        }
+
+        /** fills chunks with words, handing each one out once it's full */
+        class Chunker {
+            String [] chunk = new String[batch];
+            int num;
+
+            /** add a word, returning the chunk if it's now full */
+            String [] next(String word) {
+                chunk[num++] = word;
+                if (num < batch) return null;
+                String [] full = chunk;
+                chunk = new String[batch];
+                num = 0;
+                return full;
+            }
+
+            /** the partial last chunk, or null if empty */
+            String [] rest() {
+                return num==0 ? null : chunk;
+            }
+        }
+    }
+
+    public static class JctoolsBatch extends Batched {
+        @Benchmark
+        public Object measureThroughput() throws InterruptedException {
+            Runner [] actors = new Runner[numPool];
+            for (int ii=0; ii < actors.length; ii++)
+                (actors[ii] = new Runner()).start();
+            int target = 0;
+            Chunker chunker = new Chunker();
+            for (String word : shakespeareWords) {
+                String [] chunk = chunker.next(word);
+                if (chunk != null) {
+                    target = inc(target,actors.length);
+                    while (!actors[target].queue.offer(chunk));
+                }
+            }
+            String [] rest = chunker.rest();
+            if (rest != null)
+                while (!actors[inc(target,actors.length)].queue.offer(rest));
+            for (int ii=0; ii < actors.length; ii++)
+                while (! actors[ii].queue.offer(stopChunk));
+
+            for (Runner actor : actors)
+                actor.join();
+            return getList();
+        }
+        class Runner extends Thread {
+            SpscArrayQueue<String []> queue = new SpscArrayQueue(chunks());
+            public void run() {
+                for (String [] chunk; (chunk = queue.poll()) != stopChunk;)
+                    process(chunk);
+            }
+        }
+    }
+
+    public static class ConversantBatch extends Batched {
+        DisruptorBlockingQueue<String []> queue;
+        @Benchmark
+        public Object measureThroughput() throws InterruptedException {
+            queue = new DisruptorBlockingQueue<>(chunks(), SpinPolicy.WAITING);
+            Runner [] actors = new Runner[numPool];
+            for (int ii=0; ii < actors.length; ii++)
+                (actors[ii] = new Runner()).start();
+            Chunker chunker = new Chunker();
+            for (String word : shakespeareWords) {
+                String [] chunk = chunker.next(word);
+                if (chunk != null)
+                    queue.put(chunk);
+            }
+            String [] rest = chunker.rest();
+            if (rest != null)
+                queue.put(rest);
+            for (int ii=0; ii < actors.length; ii++)
+                queue.put(stopChunk);
+
+            for (Runner actor : actors)
+                actor.join();
+            queue = null;
+            return getList();
+        }
+        class Runner extends Thread {
+            public void run() {
+                for (String [] chunk; (chunk = queue.poll()) != stopChunk;)
+                    process(chunk);
+            }
+        }
+    }
+
+    public static class KilimBatch extends Batched {
+        static {
+            Scheduler.setDefaultScheduler(new ForkJoinScheduler(-1));
+        }
+        @Benchmark
+        public Object measureThroughput() throws InterruptedException {
+            Worker [] actors = new Worker[numProc];
+            for (int ii=0; ii < actors.length; ii++)
+                (actors[ii] = new Worker()).start();
+            Task.fork(() -> {
+                int target = 0;
+                Chunker chunker = new Chunker();
+                for (String word : shakespeareWords) {
+                    String [] chunk = chunker.next(word);
+                    if (chunk != null)
+                        actors[target = inc(target,actors.length)].box.put(chunk);
+                }
+                String [] rest = chunker.rest();
+                if (rest != null)
+                    actors[inc(target,actors.length)].box.put(rest);
+                for (Worker actor : actors)
+                    actor.box.put(stopChunk);
+            }).joinb();
+
+            for (Worker actor : actors)
+                actor.joinb();
+            return getList();
+        }
+
+        class Worker extends Task<Void> {
+            MailboxSPSC<String []> box = new MailboxSPSC(chunks());
+
+            public void execute() throws Pausable {
+                for (String [] chunk; (chunk = box.get()) != stopChunk;)
+                    process(chunk);
+            }
+        }
+    }
+
+    public static class QuasarBatch extends Batched {
+        @Benchmark
+        public Object measureThroughput() throws InterruptedException {
+            Worker [] actors = new Worker[numProc];
+            for (int ii=0; ii < actors.length; ii++)
+                (actors[ii] = new Worker()).start();
+            try {
+                new Fiber<Void>(() -> {
+                    int target = 0;
+                    Chunker chunker = new Chunker();
+                    for (String word : shakespeareWords) {
+                        String [] chunk = chunker.next(word);
+                        if (chunk != null)
+                            actors[target = inc(target,actors.length)].box.send(chunk);
+                    }
+                    String [] rest = chunker.rest();
+                    if (rest != null)
+                        actors[inc(target,actors.length)].box.send(rest);
+                    for (Worker actor : actors)
+                        actor.box.send(stopChunk);
+                }).start().joinNoSuspend();
+                for (Worker actor : actors)
+                    actor.joinNoSuspend();
+            }
+            catch (ExecutionException ex) {}
+
+            return getList();
+        }
+
+        class Worker extends Fiber<Void> {
+            Channel<String []> box = Channels.newChannel(chunks(),OverflowPolicy.BACKOFF,true,true);
+
+            protected Void run() throws SuspendExecution,InterruptedException {
+                for (String [] chunk; (chunk = box.receive()) != stopChunk;)
+                    process(chunk);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * blocking code on virtual threads, mirroring the fibers of Quasar and Kilim without weaving.
+     * before jdk 21 (or outside the multi-release jar) the threads are platform threads
+     */
+    public static abstract class Virtual extends Base {
+        interface Blocking {
+            void run() throws InterruptedException;
+        }
+
+        static Thread start(Blocking task) {
+            return VirtualThreads.start(() -> {
+                try {
+                    task.run();
+                }
+                catch (InterruptedException ex) {
+                    throw new RuntimeException(ex);
+                }
+            });
+        }
+
+        void consume(BlockingQueue<String> box) throws InterruptedException {
+            for (String word; (word = box.take()) != stop;) {
+                int num = score(word);
+                if (num != REJECTED)
+                    addWord(num,word);
+            }
+        }
+
+        void doMain() throws Exception {
+            if (! VirtualThreads.virtual())
+                System.out.println("warning: virtual threads need jdk 21 and the multi-release jar, using platform threads");
+            super.doMain();
+        }
+    }
+
+    /** Quasar on virtual threads, with a bounded queue per worker */
+    public static class Loom extends Virtual {
+        @Benchmark
+        public Object measureThroughput() throws InterruptedException {
+            BlockingQueue<String> [] boxes = new BlockingQueue[numProc];
+            Thread [] actors = new Thread[numProc];
+            for (int ii=0; ii < actors.length; ii++) {
+                BlockingQueue<String> box = boxes[ii] = new ArrayBlockingQueue<>(capacity);
+                actors[ii] = start(() -> consume(box));
+            }
+            start(() -> {
+                int target = 0;
+                for (String word : shakespeareWords)
+                    boxes[target = inc(target,boxes.length)].put(word);
+                for (BlockingQueue<String> box : boxes)
+                    box.put(stop);
+            }).join();
+            for (Thread actor : actors)
+                actor.join();
+            return getList();
+        }
+    }
+
+    /** QuasarFair on virtual threads, with a single shared bounded or synchronous queue */
+    public static class LoomFair extends Virtual {
+        @Param({"array","synchronous"})
+        public String handoff = "array";
+        @Benchmark
+        public Object measureThroughput() throws InterruptedException {
+            BlockingQueue<String> box = handoff.equals("synchronous")
+                    ? new SynchronousQueue<>()
+                    : new ArrayBlockingQueue<>(capacity);
+            Thread [] actors = new Thread[numProc];
+            for (int ii=0; ii < actors.length; ii++)
+                actors[ii] = start(() -> consume(box));
+            start(() -> {
+                for (String word : shakespeareWords)
+                    box.put(word);
+                for (Thread actor : actors)
+                    box.put(stop);
+            }).join();
+            for (Thread actor : actors)
+                actor.join();
+            return getList();
+        }
+    }
+
+    /** the Movie actor pool on virtual threads */
+    public static class LoomMovie extends Virtual {
+        @Benchmark
+        public Object measureThroughput() throws InterruptedException {
+            cast(shakespeareWords,numProc,capacity,word -> {
+                int num = score(word);
+                if (num != REJECTED)
+                    addWord(num,word);
+            });
+            return getList();
+        }
+
+        static <UU> void cast(Iterable<UU> able,int num,int size,Consumer<UU> action) throws InterruptedException {
+            Actors<UU> actors = new Actors(num,size,action);
+            start(() -> {
+                for (UU val : able)
+                    actors.put(val);
+                actors.join();
+            }).join();
+        }
+
+        static class Actors<UU> {
+            BlockingQueue<Object> [] boxes;
+            Thread [] actors;
+            int target;
+            Object stop2 = new Object();
+            int inc() {
+                if (++target==boxes.length) target = 0;
+                return target;
+            }
+            void put(UU value) throws InterruptedException {
+                for (int ii=0; ii < boxes.length; ii++)
+                    if (boxes[inc()].offer(value)) return;
+                Thread.yield();
+                for (int ii=0; ii < boxes.length; ii++)
+                    if (boxes[inc()].offer(value)) return;
+                boxes[inc()].put(value);
+            }
+            void join() throws InterruptedException {
+                for (BlockingQueue<Object> box : boxes)
+                    box.put(stop2);
+                for (Thread actor : actors)
+                    actor.join();
+            }
+
+            public Actors(int num,int size,Consumer<UU> action) {
+                boxes = new BlockingQueue[num];
+                actors = new Thread[num];
+                for (int ii=0; ii < num; ii++) {
+                    BlockingQueue<Object> box = boxes[ii] = new ArrayBlockingQueue<>(size);
+                    actors[ii] = start(() -> {
+                        for (Object val; (val = box.take()) != stop2;)
+                            action.accept((UU) val);
+                    });
+                }
+            }
+        }
+    }
+
+    /**
+     * score a word, using the precomputed table, the allocation-free kernel or the original histogram
+     * @return the score, or REJECTED if the word is null (an empty poll), isn't in the dictionary or needs too many blanks
+     */
+    int score(String word) {
+        if (word==null)
+            return REJECTED;
+        if (table != null)
+            return table.get(word);
+        if (! kernel) {
+            Integer num = getWord(word);
+            return num==null ? REJECTED : num;
+        }
+        if (! scrabbleWords.contains(word))
+            return REJECTED;
+        int hash = hash(word);
+        if (signature && LetterSignature.check(word) == LetterSignature.REJECT)
+            return REJECTED;
+        int sum2 = ScrabbleScorer.get().score(word);
+        return sum2==REJECTED ? REJECTED : sum2 + hash;
+    }
+
     Integer getWord(String word) {
             if (scrabbleWords.contains(word)) {
                 int hash = hash(word);
+                int quick = signature ? LetterSignature.check(word) : LetterSignature.UNKNOWN;
+                if (quick == LetterSignature.REJECT)
+                    return null;
                 HashMap<Integer, MutableLong> wordHistogram = new LinkedHashMap<>();
                 for (int i = 0; i < word.length(); i++) {
                     MutableLong newValue = wordHistogram.get((int)word.charAt(i)) ;
@@ -526,10 +1407,11 @@ public abstract class ShakespearePlaysScrabbleWithQueues extends ShakespearePlay
                     newValue.incAndSet();
                 }
                 long sum = 0L;
-                for (Entry<Integer, MutableLong> entry : wordHistogram.entrySet()) {
-                    sum += Long.max(0L, entry.getValue().get() -
-                                scrabbleAvailableLetters[entry.getKey() - 'a']);
-                }
+                if (quick == LetterSignature.UNKNOWN)
+                    for (Entry<Integer, MutableLong> entry : wordHistogram.entrySet()) {
+                        sum += Long.max(0L, entry.getValue().get() -
+                                    scrabbleAvailableLetters[entry.getKey() - 'a']);
+                    }
                 boolean b = sum <= 2L;
 
                 if (b) {
@@ -568,50 +1450,43 @@ public abstract class ShakespearePlaysScrabbleWithQueues extends ShakespearePlay
             }
             return null;
     }
-    synchronized void addWord(Integer sum2,String word) {
-        {
-            {
-                {
-                    Integer key = sum2;
-                    boolean big = fast && treemap.size() >= numSave;
-                    if (big && key < treemap.lastKey()) return;
-
-                    List<String> list = treemap.get(key) ;
-                    if (list == null) {
-                        list = new ArrayList<>() ;
-                        if (big)
-                            treemap.pollLastEntry();
-                        treemap.put(key, list) ;
-                    }
-                    list.add(word);
-                }
-            }
-        }
+    void addWord(int sum2,String word) {
+        results.add(sum2,word);
     }
-    
+
     Object getList() {
-        List<Entry<Integer, List<String>>> list = new ArrayList();
-        int i = 4;
-        for (Entry<Integer, List<String>> e : treemap.entrySet()) {
-            if (--i == 0)
-                break;
-            list.add(e);
-        }
-        treemap = null;
+        List<Entry<Integer, List<String>>> list = results.best(3);
+        results = null;
         return list;
     }
 
     public static void main(String[] args) throws Exception {
         new RxJava().doMain();
+        new RxJavaReduce().doMain();
         new Jctools().doMain();
         new JctoolsFair().doMain();
+        new JctoolsCrew().doMain();
+        new JctoolsFairCrew().doMain();
+        new JctoolsDrain().doMain();
+        new JctoolsFairDrain().doMain();
         new Conversant().doMain();
+        new ConversantCrew().doMain();
+        new Ring().doMain();
+        new JctoolsBatch().doMain();
+        new ConversantBatch().doMain();
         new Push().doMain();
+        new PushCrew().doMain();
         new Kilim().doMain();
+        new KilimBatch().doMain();
         new Movie().doMain();
         new Direct().doMain();
         new Stream8().doMain();
+        new ForkJoin().doMain();
         new Quasar().doMain();
+        new QuasarBatch().doMain();
+        new Loom().doMain();
+        new LoomFair().doMain();
+        new LoomMovie().doMain();
     }
 
     static class MutableLong {
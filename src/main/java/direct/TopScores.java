@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package direct;
+
+import java.util.*;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * a thread safe, lock free accumulator of the words for the best numSave distinct scores.
+ *
+ * the state is an immutable snapshot swapped in with a CAS, and the lowest kept score is published
+ * in a volatile threshold once the snapshot is full. words below the threshold are rejected with
+ * a single volatile read, which is nearly all of them once the best scores have been seen.
+ * the threshold can lag the snapshot but never exceeds it, since the lowest kept score only rises
+ *
+ * @author nqzero
+ */
+class TopScores extends Scores {
+    volatile int threshold = Integer.MIN_VALUE;
+    final AtomicReference<Top> state = new AtomicReference<>(new Top(new int[0],new Node[0]));
+
+    /** the words of a score, newest first, shared between snapshots */
+    static final class Node {
+        final String word;
+        final Node next;
+
+        Node(String word,Node next) {
+            this.word = word;
+            this.next = next;
+        }
+
+        /** the words, oldest first */
+        List<String> list() {
+            ArrayList<String> list = new ArrayList<>();
+            for (Node node = this; node != null; node = node.next)
+                list.add(node.word);
+            Collections.reverse(list);
+            return list;
+        }
+    }
+
+    /**
+     * the kept scores, best first, and their words. adding a word copies only the numSave heads,
+     * not the words already kept
+     */
+    static final class Top {
+        final int [] keys;
+        final Node [] words;
+
+        Top(int [] keys,Node [] words) {
+            this.keys = keys;
+            this.words = words;
+        }
+
+        /** a copy with word added, or this if key can't be kept */
+        Top with(int key,String word,int numSave) {
+            int num = keys.length, ii = 0;
+            while (ii < num && keys[ii] > key)
+                ii++;
+            if (ii < num && keys[ii]==key) {
+                Node [] copy = words.clone();
+                copy[ii] = new Node(word,words[ii]);
+                return new Top(keys,copy);
+            }
+            if (ii==numSave) return this;
+            int size = Math.min(num+1,numSave);
+            int [] keys2 = new int[size];
+            Node [] words2 = new Node[size];
+            System.arraycopy(keys,0,keys2,0,ii);
+            System.arraycopy(words,0,words2,0,ii);
+            keys2[ii] = key;
+            words2[ii] = new Node(word,null);
+            System.arraycopy(keys,ii,keys2,ii+1,size-ii-1);
+            System.arraycopy(words,ii,words2,ii+1,size-ii-1);
+            return new Top(keys2,words2);
+        }
+    }
+
+    TopScores(int numSave) {
+        super(numSave);
+    }
+
+    void add(int key,String word) {
+        if (key < threshold) return;
+        while (true) {
+            Top current = state.get();
+            Top next = current.with(key,word,numSave);
+            if (next==current) return;
+            if (state.compareAndSet(current,next)) {
+                if (next.keys.length==numSave)
+                    threshold = next.keys[numSave-1];
+                return;
+            }
+        }
+    }
+
+    void forEach(ObjIntConsumer<String> action) {
+        Top top = state.get();
+        for (int ii=0; ii < top.keys.length; ii++)
+            for (String word : top.words[ii].list())
+                action.accept(word,top.keys[ii]);
+    }
+
+    List<Entry<Integer, List<String>>> best(int num) {
+        Top top = state.get();
+        List<Entry<Integer, List<String>>> list = new ArrayList();
+        for (int ii=0; ii < top.keys.length && ii < num; ii++)
+            list.add(new SimpleImmutableEntry<>(top.keys[ii],top.words[ii].list()));
+        return list;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package direct;
+
+/**
+ * starts the threads for the Loom benchmarks. this is the fallback for jdks before 21,
+ * using platform threads - the multi-release jar replaces it with src/main/java21/direct/VirtualThreads
+ *
+ * @author nqzero
+ */
+class VirtualThreads {
+    /** are the started threads virtual. a method, not a constant that would be inlined into the callers */
+    static boolean virtual() {
+        return false;
+    }
+
+    static Thread start(Runnable task) {
+        Thread thread = new Thread(task);
+        thread.start();
+        return thread;
+    }
+}
@@ -22,7 +22,9 @@ import java.util.Map.Entry;
 import java.util.concurrent.TimeUnit;
 
 import org.openjdk.jmh.annotations.*;
+import org.paumard.jdk8.bench.LetterSignature;
 import org.paumard.jdk8.bench.ShakespearePlaysScrabble;
+import org.paumard.jdk8.bench.ScrabbleScorer;
 
 /**
  * Shakespeare plays Scrabble with a for-loop.
@@ -48,6 +50,9 @@ public class ShakespearePlaysScrabbleWithDirect extends ShakespearePlaysScrabble
         
         for (String word : shakespeareWords) {
             if (scrabbleWords.contains(word)) {
+                int quick = signature ? LetterSignature.check(word) : LetterSignature.UNKNOWN;
+                if (quick == LetterSignature.REJECT)
+                    continue;
                 HashMap<Integer, MutableLong> wordHistogram = new LinkedHashMap<>();
                 for (int i = 0; i < word.length(); i++) {
                     MutableLong newValue = wordHistogram.get((int)word.charAt(i)) ;
@@ -58,10 +63,11 @@ public class ShakespearePlaysScrabbleWithDirect extends ShakespearePlaysScrabble
                     newValue.incAndSet();
                 }
                 long sum = 0L;
-                for (Entry<Integer, MutableLong> entry : wordHistogram.entrySet()) {
-                    sum += Long.max(0L, entry.getValue().get() -
-                                scrabbleAvailableLetters[entry.getKey() - 'a']);
-                }
+                if (quick == LetterSignature.UNKNOWN)
+                    for (Entry<Integer, MutableLong> entry : wordHistogram.entrySet()) {
+                        sum += Long.max(0L, entry.getValue().get() -
+                                    scrabbleAvailableLetters[entry.getKey() - 'a']);
+                    }
                 boolean b = sum <= 2L;
 
                 if (b) {
@@ -121,10 +127,58 @@ public class ShakespearePlaysScrabbleWithDirect extends ShakespearePlaysScrabble
         return list;
     }
 
+    /**
+     * the same loop, but scored with the allocation-free kernel instead of the LinkedHashMap histogram
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(
+        iterations=20
+    )
+    @Measurement(
+        iterations=20
+    )
+    @Fork(5)
+    public List<Entry<Integer, List<String>>> measureThroughputKernel() throws InterruptedException {
+
+        TreeMap<Integer, List<String>> treemap = new TreeMap<Integer, List<String>>(Comparator.reverseOrder());
+        ScrabbleScorer scorer = ScrabbleScorer.get();
+
+        for (String word : shakespeareWords) {
+            if (scrabbleWords.contains(word)) {
+                if (signature && LetterSignature.check(word) == LetterSignature.REJECT)
+                    continue;
+                int sum2 = scorer.score(word);
+                if (sum2 != ScrabbleScorer.REJECTED) {
+                    List<String> list = treemap.get(sum2) ;
+                    if (list == null) {
+                        list = new ArrayList<>() ;
+                        treemap.put(sum2, list) ;
+                    }
+                    list.add(word) ;
+                }
+            }
+        }
+
+        List<Entry<Integer, List<String>>> list = new ArrayList<Entry<Integer, List<String>>>();
+
+        int i = 4;
+        for (Entry<Integer, List<String>> e : treemap.entrySet()) {
+            if (--i == 0) {
+                break;
+            }
+            list.add(e);
+        }
+
+        return list;
+    }
+
     public static void main(String[] args) throws Exception {
         ShakespearePlaysScrabbleWithDirect s = new ShakespearePlaysScrabbleWithDirect();
         s.init();
         System.out.println(s.measureThroughput());
+        System.out.println(s.measureThroughputKernel());
     }
 
     static class MutableLong {
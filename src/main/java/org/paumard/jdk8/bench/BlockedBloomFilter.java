@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.paumard.jdk8.bench;
+
+import java.util.Collection;
+
+/**
+ * a bloom filter split into 64 byte blocks, one cache line each.
+ * every word sets (and every probe reads) all of its bits in a single block,
+ * so a lookup costs one cache miss whatever the number of hash functions
+ *
+ * @author nqzero
+ */
+public class BlockedBloomFilter {
+    /** longs per block, 512 bits */
+    static final int blockLongs = 8;
+    static final long seed = 0x5bd1e995;
+
+    private final long [] bits;
+    private final int numBlocks;
+    private final int numHashes;
+
+    /**
+     * @param fpp the target false positive rate. blocking costs a little accuracy, so the size is
+     *   padded by 10% over the classic bloom filter formula
+     */
+    public BlockedBloomFilter(Collection<String> words,double fpp) {
+        int num = Math.max(1,words.size());
+        double ln2 = Math.log(2);
+        double numBits = 1.1 * -num * Math.log(fpp) / (ln2*ln2);
+        numBlocks = Math.max(1,(int) Math.ceil(numBits / (64*blockLongs)));
+        numHashes = Math.max(1,Math.min(16,(int) Math.round(numBits / num * ln2)));
+        bits = new long[numBlocks*blockLongs];
+        for (String word : words)
+            add(word);
+    }
+
+    private int block(long hash) {
+        return (int) (((hash >>> 32) * numBlocks) >>> 32) * blockLongs;
+    }
+
+    private void add(CharSequence word) {
+        long hash = Util.hash64(word,seed);
+        int block = block(hash);
+        int h1 = (int) hash, h2 = (int) (hash >>> 32) | 1;
+        for (int ii=0; ii < numHashes; ii++) {
+            int bit = (h1 + ii*h2) & 511;
+            bits[block + (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /** false if the word is definitely not in the set */
+    public boolean mightContain(CharSequence word) {
+        long hash = Util.hash64(word,seed);
+        int block = block(hash);
+        int h1 = (int) hash, h2 = (int) (hash >>> 32) | 1;
+        for (int ii=0; ii < numHashes; ii++) {
+            int bit = (h1 + ii*h2) & 511;
+            if ((bits[block + (bit >>> 6)] & 1L << bit)==0)
+                return false;
+        }
+        return true;
+    }
+
+    public long bytes() {
+        return 8L * bits.length;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.paumard.jdk8.bench;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * a read-only set of words probed directly in a memory mapped snapshot file, so loading the
+ * dictionary is just a map - no parsing, no String per word and no hash set to rebuild.
+ *
+ * the file is a header, an open addressing table of word indices (plus one, 0 is empty),
+ * the word offsets and the byte arena. the header records the size and modification time of the
+ * source text, and a stale snapshot is rewritten
+ *
+ * @author nqzero
+ */
+public class DictionarySnapshot extends AbstractSet<String> {
+    static final int magic = 0x4F535044;
+    static final int version = 1;
+    static final int headerSize = 36;
+
+    private final ByteBuffer buffer;
+    private final int num;
+    private final int mask;
+    private final int offsetsStart;
+    private final int arenaStart;
+
+    DictionarySnapshot(ByteBuffer buffer) {
+        this.buffer = buffer;
+        num = buffer.getInt(8);
+        mask = buffer.getInt(12) - 1;
+        offsetsStart = headerSize + 4*(mask+1);
+        arenaStart = offsetsStart + 4*(num+1);
+    }
+
+    /**
+     * map the snapshot of source, first writing it if it's missing or stale
+     */
+    public static DictionarySnapshot map(Path source,Path snapshot) throws IOException {
+        refresh(source,snapshot);
+        try (FileChannel channel = FileChannel.open(snapshot,StandardOpenOption.READ)) {
+            return new DictionarySnapshot(channel.map(MapMode.READ_ONLY,0,channel.size()));
+        }
+    }
+
+    /** write the snapshot of source if it's missing or stale, without mapping it */
+    public static void refresh(Path source,Path snapshot) throws IOException {
+        long size = Files.size(source), modified = Files.getLastModifiedTime(source).toMillis();
+        if (! current(snapshot,size,modified))
+            write(Util.mapWords(source),snapshot,size,modified);
+    }
+
+    static boolean current(Path snapshot,long size,long modified) throws IOException {
+        if (! Files.exists(snapshot)) return false;
+        try (FileChannel channel = FileChannel.open(snapshot,StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(headerSize);
+            while (header.hasRemaining() && channel.read(header) >= 0) {}
+            return ! header.hasRemaining()
+                    && header.getInt(0)==magic && header.getInt(4)==version
+                    && header.getLong(20)==size && header.getLong(28)==modified;
+        }
+    }
+
+    /** serialize the words, writing to a temporary file that's renamed into place */
+    static void write(WordArena words,Path snapshot,long size,long modified) throws IOException {
+        int num = words.size();
+        int cap = Integer.highestOneBit(Math.max(2,num)*2-1) << 1;
+        int [] table = new int[cap];
+        byte [] arena = words.arena();
+        for (int ii=0; ii < num; ii++) {
+            int start = words.offset(ii);
+            int slot = (int) Util.hash64(arena,start,start+words.length(ii),0) & (cap-1);
+            while (table[slot] != 0)
+                slot = (slot+1) & (cap-1);
+            table[slot] = ii+1;
+        }
+        int arenaLength = num==0 ? 0 : words.offset(num-1) + words.length(num-1);
+        ByteBuffer out = ByteBuffer.allocate(headerSize + 4*cap + 4*(num+1) + arenaLength);
+        out.putInt(magic).putInt(version).putInt(num).putInt(cap).putInt(arenaLength);
+        out.putLong(size).putLong(modified);
+        for (int slot : table)
+            out.putInt(slot);
+        for (int ii=0; ii <= num; ii++)
+            out.putInt(ii < num ? words.offset(ii) : arenaLength);
+        out.put(arena,0,arenaLength);
+        out.flip();
+
+        Path parent = snapshot.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent,"snapshot",".tmp");
+        try (FileChannel channel = FileChannel.open(tmp,StandardOpenOption.WRITE)) {
+            while (out.hasRemaining())
+                channel.write(out);
+        }
+        Files.move(tmp,snapshot,StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private int offset(int index) {
+        return buffer.getInt(offsetsStart + 4*index);
+    }
+
+    public boolean contains(Object obj) {
+        if (! (obj instanceof String)) return false;
+        String word = (String) obj;
+        int len = word.length();
+        for (int slot = (int) Util.hash64(word,0) & mask; ; slot = (slot+1) & mask) {
+            int index = buffer.getInt(headerSize + 4*slot) - 1;
+            if (index < 0) return false;
+            int start = offset(index);
+            if (offset(index+1) - start != len) continue;
+            int ii = 0;
+            while (ii < len && buffer.get(arenaStart+start+ii)==word.charAt(ii))
+                ii++;
+            if (ii==len) return true;
+        }
+    }
+
+    public int size() {
+        return num;
+    }
+
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            int index;
+            public boolean hasNext() { return index < num; }
+            public String next() {
+                if (index >= num) throw new NoSuchElementException();
+                int start = offset(index), len = offset(++index) - start;
+                byte [] bytes = new byte[len];
+                for (int ii=0; ii < len; ii++)
+                    bytes[ii] = buffer.get(arenaStart+start+ii);
+                return new String(bytes,StandardCharsets.ISO_8859_1);
+            }
+        };
+    }
+}
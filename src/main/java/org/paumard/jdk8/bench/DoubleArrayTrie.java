@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.paumard.jdk8.bench;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import static org.paumard.jdk8.bench.ScrabbleScorer.REJECTED;
+import static org.paumard.jdk8.bench.ShakespearePlaysScrabble.letterScores;
+import static org.paumard.jdk8.bench.ShakespearePlaysScrabble.scrabbleAvailableLetters;
+
+/**
+ * a double-array trie over the lower case dictionary words.
+ * the child of node n for code c is base[n]+c, and is valid if check[base[n]+c] == n+1.
+ * letters are codes 1 to 26 and code 0 marks the end of a word
+ *
+ * {@link #score} walks a word once, confirming membership while building the letter histogram,
+ * and gives up as soon as the word leaves the dictionary or needs more than 2 blanks
+ *
+ * @author nqzero
+ */
+public class DoubleArrayTrie {
+    private int [] base;
+    private int [] check;
+    private int size;
+    private int nextCheck = 1;
+    private String [] words;
+
+    public DoubleArrayTrie(Collection<String> dictionary) {
+        words = dictionary.stream().distinct().sorted().toArray(String[]::new);
+        base = new int[1<<16];
+        check = new int[1<<16];
+        size = 1;
+        if (words.length > 0)
+            insert(0,0,words.length,0);
+        base = Arrays.copyOf(base,size+27);
+        check = Arrays.copyOf(check,size+27);
+        words = null;
+    }
+
+    private static int code(String word,int depth) {
+        return depth < word.length() ? word.charAt(depth) - 'a' + 1 : 0;
+    }
+
+    private void grow(int min) {
+        if (min < check.length) return;
+        int cap = Math.max(min+1,check.length*2);
+        base = Arrays.copyOf(base,cap);
+        check = Arrays.copyOf(check,cap);
+    }
+
+    /** place the children of node, ie the words in [lo,hi) at depth, which share a prefix */
+    private void insert(int node,int lo,int hi,int depth) {
+        int [] codes = new int[27];
+        int [] starts = new int[28];
+        int num = 0;
+        for (int ii=lo; ii < hi; ii++) {
+            int code = code(words[ii],depth);
+            if (num==0 || codes[num-1] != code) {
+                codes[num] = code;
+                starts[num++] = ii;
+            }
+        }
+        starts[num] = hi;
+
+        int first = codes[0], nonzero = 0, pos = Math.max(nextCheck,first+1) - 1;
+        int bb;
+        while (true) {
+            pos++;
+            grow(pos);
+            if (check[pos] != 0) {
+                nonzero++;
+                continue;
+            }
+            bb = pos - first;
+            grow(bb + codes[num-1]);
+            int kk = 1;
+            while (kk < num && check[bb+codes[kk]]==0)
+                kk++;
+            if (kk==num) break;
+        }
+        // skip over densely packed regions on later searches
+        if (1.0 * nonzero / (pos - nextCheck + 1) >= 0.95)
+            nextCheck = pos;
+
+        base[node] = bb;
+        for (int kk=0; kk < num; kk++) {
+            check[bb+codes[kk]] = node+1;
+            size = Math.max(size,bb+codes[kk]+1);
+        }
+        for (int kk=0; kk < num; kk++)
+            if (codes[kk] != 0)
+                insert(bb+codes[kk],starts[kk],starts[kk+1],depth+1);
+    }
+
+    /** is the lower case word in the dictionary */
+    public boolean contains(CharSequence word) {
+        int node = 0;
+        for (int ii=0; ii < word.length(); ii++) {
+            int code = word.charAt(ii) - 'a' + 1;
+            if (code < 1 || code > 26) return false;
+            int next = base[node] + code;
+            if (check[next] != node+1) return false;
+            node = next;
+        }
+        return check[base[node]]==node+1;
+    }
+
+    /**
+     * score a lower case word in a single pass, with the same result as the dictionary check
+     * followed by ScrabbleScorer.score
+     * @param histo a zeroed scratch histogram of 26 letters, confined to the calling thread
+     *   and left zeroed on return
+     * @return the score, or REJECTED if the word isn't in the dictionary or needs more than 2 blanks
+     */
+    public int score(CharSequence word,int [] histo) {
+        int len = word.length();
+        int node = 0, blanks = 0, sum = 0, max = 0, ii = 0;
+        boolean ok = false;
+        for (; ii < len; ii++) {
+            int letter = word.charAt(ii) - 'a';
+            if (letter < 0 || letter >= 26) break;
+            int next = base[node] + letter + 1;
+            if (check[next] != node+1) break;
+            node = next;
+            int value = letterScores[letter];
+            if (++histo[letter] > scrabbleAvailableLetters[letter]) {
+                if (++blanks > 2) {
+                    ii++;
+                    break;
+                }
+            }
+            else
+                sum += value;
+            if (value > max) max = value;
+        }
+        if (ii==len && blanks <= 2)
+            ok = check[base[node]]==node+1;
+        for (int jj=0; jj < ii; jj++)
+            histo[word.charAt(jj) - 'a'] = 0;
+        if (! ok)
+            return REJECTED;
+        return 2*(sum + max) + (len==7 ? 50:0);
+    }
+
+    /** the size of the base and check arrays */
+    public long bytes() {
+        return 8L * base.length;
+    }
+}
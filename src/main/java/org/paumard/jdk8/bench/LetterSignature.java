@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.paumard.jdk8.bench;
+
+import static org.paumard.jdk8.bench.ShakespearePlaysScrabble.scrabbleAvailableLetters;
+
+/**
+ * decide the "at most 2 blanks" check with a few integer ops, without a histogram, when possible.
+ *
+ * a word is summarized by 26 bit masks of the letters it uses at least once, twice and 3 times.
+ * a letter used exactly twice needs a blank only if the bag holds just one, so the blank count is exact
+ * unless a letter used 3 or more times could outrun the bag. such a letter is used at most
+ * length - (distinct letters - 1) times, and only if the bag holds fewer than that
+ * does the word need the histogram (or a lower bound that already exceeds 2 blanks)
+ *
+ * @author nqzero
+ */
+public class LetterSignature {
+    public static final int REJECT = -1;
+    public static final int UNKNOWN = 0;
+    public static final int ACCEPT = 1;
+
+    /** the letters the bag holds exactly one and exactly two of */
+    static final int single, pair;
+    /** under[num]: the letters the bag holds fewer than num of */
+    static final int [] under = new int[16];
+    static final int all = (1<<26) - 1;
+
+    static {
+        int one = 0, two = 0;
+        for (int ii=0; ii < 26; ii++) {
+            if (scrabbleAvailableLetters[ii]==1) one |= 1<<ii;
+            if (scrabbleAvailableLetters[ii]==2) two |= 1<<ii;
+            for (int num=0; num < under.length; num++)
+                if (scrabbleAvailableLetters[ii] < num)
+                    under[num] |= 1<<ii;
+        }
+        single = one;
+        pair = two;
+    }
+
+    /**
+     * the fast path for a lower case word
+     * @return ACCEPT or REJECT if the signature decides the blank check, else UNKNOWN
+     */
+    public static int check(CharSequence word) {
+        int len = word.length();
+        if (len <= 2) return ACCEPT;
+        int once = 0, twice = 0, thrice = 0;
+        for (int ii=0; ii < len; ii++) {
+            int bit = 1 << (word.charAt(ii) - 'a');
+            thrice |= twice & bit;
+            twice |= once & bit;
+            once |= bit;
+        }
+        int blanks = Integer.bitCount(twice & ~thrice & single);
+        if (thrice != 0) {
+            int most = len - Integer.bitCount(once) + 1;
+            if ((thrice & (most < under.length ? under[most] : all)) != 0) {
+                // a lower bound, counting 3 uses for each of these letters
+                blanks += 2*Integer.bitCount(thrice & single) + Integer.bitCount(thrice & pair);
+                return blanks > 2 ? REJECT : UNKNOWN;
+            }
+        }
+        return blanks > 2 ? REJECT : ACCEPT;
+    }
+
+    /**
+     * how many of words the fast path decides. computed by re-checking the words, outside the benchmark,
+     * so check has no counters to update
+     */
+    public static String stats(Iterable<? extends CharSequence> words) {
+        long accepted = 0, rejected = 0, unknown = 0;
+        for (CharSequence word : words) {
+            int result = check(word);
+            if (result==ACCEPT) accepted++;
+            else if (result==REJECT) rejected++;
+            else unknown++;
+        }
+        long num = accepted + rejected + unknown;
+        return String.format("signature: %d checks, %d accepted, %d rejected, %d needed the histogram (%.1f%% decided)",
+                num, accepted, rejected, unknown, 100.0 * (accepted + rejected) / Math.max(1,num));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.paumard.jdk8.bench;
+
+/**
+ * a primitive set of non-zero longs, open addressing with linear probing in a single long[]
+ *
+ * @author nqzero
+ */
+public class LongHashSet {
+    private long [] table;
+    private int mask;
+    private int num;
+
+    public LongHashSet(int expected) {
+        int cap = Integer.highestOneBit(Math.max(2,expected)*2-1) << 1;
+        table = new long[cap];
+        mask = cap-1;
+    }
+
+    private static int index(long key) {
+        return (int) Util.mix64(key);
+    }
+
+    /** add a non-zero key */
+    public boolean add(long key) {
+        if (key==0) throw new IllegalArgumentException("zero is reserved for empty slots");
+        if (2*(num+1) > table.length)
+            rehash();
+        int ii = index(key) & mask;
+        for (; table[ii] != 0; ii = (ii+1) & mask)
+            if (table[ii]==key) return false;
+        table[ii] = key;
+        num++;
+        return true;
+    }
+
+    public boolean contains(long key) {
+        for (int ii = index(key) & mask; ; ii = (ii+1) & mask) {
+            long val = table[ii];
+            if (val==key) return key != 0;
+            if (val==0) return false;
+        }
+    }
+
+    private void rehash() {
+        long [] old = table;
+        table = new long[old.length*2];
+        mask = table.length-1;
+        num = 0;
+        for (long key : old)
+            if (key != 0) add(key);
+    }
+
+    public int size() {
+        return num;
+    }
+
+    /** the bytes used by the table */
+    public long bytes() {
+        return 8L * table.length;
+    }
+}
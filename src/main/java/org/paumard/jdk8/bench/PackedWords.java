@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.paumard.jdk8.bench;
+
+/**
+ * lower case words of up to 12 letters packed into a long, 5 bits per letter.
+ * letter ii is stored in bits 5*ii as 1 (for 'a') to 26 (for 'z'), so the packed word is never 0
+ * and its length follows from the highest set bit
+ *
+ * @author nqzero
+ */
+public class PackedWords {
+    /** the longest word that can be packed */
+    public static final int MAX_LENGTH = 12;
+    /** the value returned by pack for a word that doesn't fit, ie it must take the overflow path */
+    public static final long OVERFLOW = 0;
+
+    /** pack a lower case word, or return OVERFLOW if it's empty, too long or not all letters */
+    public static long pack(CharSequence word) {
+        int len = word.length();
+        if (len==0 || len > MAX_LENGTH) return OVERFLOW;
+        long packed = 0;
+        for (int ii=len-1; ii >= 0; ii--) {
+            int code = word.charAt(ii) - 'a' + 1;
+            if (code < 1 || code > 26) return OVERFLOW;
+            packed = packed << 5 | code;
+        }
+        return packed;
+    }
+
+    /** pack a lower case word stored in a byte arena, or return OVERFLOW */
+    public static long pack(byte [] arena,int offset,int len) {
+        if (len==0 || len > MAX_LENGTH) return OVERFLOW;
+        long packed = 0;
+        for (int ii=len-1; ii >= 0; ii--) {
+            int code = arena[offset+ii] - 'a' + 1;
+            if (code < 1 || code > 26) return OVERFLOW;
+            packed = packed << 5 | code;
+        }
+        return packed;
+    }
+
+    /** the number of letters in a packed word */
+    public static int length(long packed) {
+        return (68 - Long.numberOfLeadingZeros(packed)) / 5;
+    }
+
+    /** the letter at index, 0 for 'a' to 25 for 'z' */
+    public static int letter(long packed,int index) {
+        return (int) (packed >>> 5*index & 31) - 1;
+    }
+
+    public static String unpack(long packed) {
+        char [] chars = new char[length(packed)];
+        for (int ii=0; ii < chars.length; ii++)
+            chars[ii] = (char) ('a' + letter(packed,ii));
+        return new String(chars);
+    }
+}
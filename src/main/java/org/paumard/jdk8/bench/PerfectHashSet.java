@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.paumard.jdk8.bench;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * an immutable set of words backed by a minimal perfect hash, built with the
+ * hash-and-displace (CHD) scheme: keys are split into small buckets and each bucket
+ * searches for a displacement that sends all of its keys to free slots.
+ * every slot holds a 32 bit fingerprint, so nearly all non-members are rejected
+ * without touching a String, and the slot's word confirms the rare fingerprint match
+ *
+ * @author nqzero
+ */
+public class PerfectHashSet extends AbstractSet<String> {
+    /** the average number of keys per bucket */
+    static final int lambda = 4;
+    /** give up on a seed, and try another, once a bucket needs more displacements than this */
+    static final int maxDisplacement = 1<<20;
+    static final long golden = 0x9E3779B97F4A7C15L;
+
+    private final String [] keys;
+    private final int [] fingerprints;
+    private final int [] displacements;
+    private final long seed;
+
+    public PerfectHashSet(Collection<String> words) {
+        String [] input = words.stream().distinct().toArray(String[]::new);
+        int num = input.length;
+        keys = new String[num];
+        fingerprints = new int[num];
+        displacements = new int[Math.max(1,(num+lambda-1)/lambda)];
+        long attempt = 0;
+        while (! build(input,attempt))
+            attempt++;
+        seed = attempt;
+    }
+
+    private static int reduce(long hash,int range) {
+        return (int) (((hash >>> 32) * range) >>> 32);
+    }
+
+    private int bucket(long hash) {
+        return (int) (((hash & 0xFFFFFFFFL) * displacements.length) >>> 32);
+    }
+
+    private int slot(long hash,int displacement) {
+        return reduce(Util.mix64(hash + (displacement+1) * golden),keys.length);
+    }
+
+    private boolean build(String [] input,long attempt) {
+        int num = input.length, nb = displacements.length;
+        long [] hashes = new long[num];
+        int [] counts = new int[nb+1];
+        for (int ii=0; ii < num; ii++) {
+            hashes[ii] = Util.hash64(input[ii],attempt);
+            counts[bucket(hashes[ii])+1]++;
+        }
+        // counting sort of the keys by bucket, then visit the biggest buckets first
+        for (int ii=0; ii < nb; ii++)
+            counts[ii+1] += counts[ii];
+        int [] members = new int[num];
+        int [] fill = Arrays.copyOf(counts,nb);
+        for (int ii=0; ii < num; ii++)
+            members[fill[bucket(hashes[ii])]++] = ii;
+        Integer [] order = new Integer[nb];
+        for (int ii=0; ii < nb; ii++)
+            order[ii] = ii;
+        Arrays.sort(order,(b1,b2) -> (counts[b2+1]-counts[b2]) - (counts[b1+1]-counts[b1]));
+
+        Arrays.fill(keys,null);
+        int [] slots = new int[lambda*8];
+        for (int bb : order) {
+            int start = counts[bb], len = counts[bb+1]-start;
+            if (len==0) break;
+            if (len > slots.length) return false;
+            int disp = 0;
+            for (;; disp++) {
+                if (disp > maxDisplacement) return false;
+                int kk = 0;
+                for (; kk < len; kk++) {
+                    int pos = slot(hashes[members[start+kk]],disp);
+                    if (keys[pos] != null || contains(slots,kk,pos)) break;
+                    slots[kk] = pos;
+                }
+                if (kk==len) break;
+            }
+            displacements[bb] = disp;
+            for (int kk=0; kk < len; kk++) {
+                int ii = members[start+kk];
+                keys[slots[kk]] = input[ii];
+                fingerprints[slots[kk]] = (int) (hashes[ii] >>> 32);
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(int [] slots,int len,int pos) {
+        for (int ii=0; ii < len; ii++)
+            if (slots[ii]==pos) return true;
+        return false;
+    }
+
+    public boolean contains(Object obj) {
+        if (! (obj instanceof String) || keys.length==0) return false;
+        String word = (String) obj;
+        long hash = Util.hash64(word,seed);
+        int pos = slot(hash,displacements[bucket(hash)]);
+        return fingerprints[pos]==(int) (hash >>> 32) && keys[pos].equals(word);
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public Iterator<String> iterator() {
+        return Arrays.asList(keys).iterator();
+    }
+
+    /**
+     * the size of the hash index (displacements and fingerprints) per key.
+     * the words themselves are shared with the source collection and aren't counted
+     */
+    public double bytesPerKey() {
+        return 4.0 * (displacements.length + fingerprints.length) / Math.max(1,keys.length);
+    }
+}
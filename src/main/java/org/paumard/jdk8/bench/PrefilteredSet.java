@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.paumard.jdk8.bench;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * a dictionary with a blocked bloom filter in front of contains, so most words that aren't
+ * in the dictionary are rejected without a full hash and equals.
+ * counts the words the filter rejects (misses), the members it passes (hits)
+ * and the non-members it passes (false positives)
+ *
+ * @author nqzero
+ */
+public class PrefilteredSet extends AbstractSet<String> {
+    private final Set<String> words;
+    private final BlockedBloomFilter filter;
+    public final LongAdder hits = new LongAdder();
+    public final LongAdder misses = new LongAdder();
+    public final LongAdder falsePositives = new LongAdder();
+
+    public PrefilteredSet(Set<String> words,double fpp) {
+        this.words = words;
+        filter = new BlockedBloomFilter(words,fpp);
+    }
+
+    public boolean contains(Object obj) {
+        if (! (obj instanceof String)) return false;
+        if (! filter.mightContain((String) obj)) {
+            misses.increment();
+            return false;
+        }
+        boolean found = words.contains(obj);
+        (found ? hits : falsePositives).increment();
+        return found;
+    }
+
+    public int size() {
+        return words.size();
+    }
+
+    public Iterator<String> iterator() {
+        return words.iterator();
+    }
+
+    /** the counts so far, ie over the whole fork including the warmup */
+    public String stats() {
+        long num = hits.sum() + misses.sum() + falsePositives.sum();
+        return String.format("bloom: %d KB, %d probes, %d hits, %d misses, %d false positives (%.2f%% of non-members)",
+                filter.bytes() >> 10, num, hits.sum(), misses.sum(), falsePositives.sum(),
+                100.0 * falsePositives.sum() / Math.max(1, misses.sum() + falsePositives.sum()));
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.paumard.jdk8.bench;
+
+import java.util.Collection;
+import java.util.function.ToIntFunction;
+
+import static org.paumard.jdk8.bench.ScrabbleScorer.REJECTED;
+
+/**
+ * a precomputed word to score table - an open addressing hash table with parallel key and score arrays.
+ * only words with a score are stored, so a single probe replaces both the dictionary lookup
+ * and the scoring of the word
+ *
+ * @author nqzero
+ */
+public class ScoreTable {
+    private final String [] keys;
+    private final int [] scores;
+    private final int mask;
+    private int num;
+
+    /**
+     * score every word, keeping those that aren't REJECTED
+     * @param words the dictionary
+     * @param score the scoring function, which may return REJECTED
+     */
+    public ScoreTable(Collection<String> words,ToIntFunction<String> score) {
+        int cap = Integer.highestOneBit(Math.max(2,words.size())*2-1) << 1;
+        keys = new String[cap];
+        scores = new int[cap];
+        mask = cap-1;
+        for (String word : words) {
+            int val = score.applyAsInt(word);
+            if (val != REJECTED)
+                put(word,val);
+        }
+    }
+
+    private static int spread(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private void put(String word,int score) {
+        int ii = spread(word.hashCode()) & mask;
+        for (; keys[ii] != null; ii = (ii+1) & mask)
+            if (keys[ii].equals(word)) break;
+        if (keys[ii]==null) num++;
+        keys[ii] = word;
+        scores[ii] = score;
+    }
+
+    /** the precomputed score, or REJECTED for a word that isn't in the dictionary or can't be played */
+    public int get(String word) {
+        for (int ii = spread(word.hashCode()) & mask; ; ii = (ii+1) & mask) {
+            String key = keys[ii];
+            if (key==null) return REJECTED;
+            if (key.equals(word)) return scores[ii];
+        }
+    }
+
+    /** the number of playable words in the table */
+    public int size() {
+        return num;
+    }
+}
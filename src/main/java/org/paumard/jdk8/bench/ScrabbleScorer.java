@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.paumard.jdk8.bench;
+
+import static org.paumard.jdk8.bench.ShakespearePlaysScrabble.letterScores;
+import static org.paumard.jdk8.bench.ShakespearePlaysScrabble.scrabbleAvailableLetters;
+
+/**
+ * an allocation-free version of the word scoring used by the Direct and Queues implementations.
+ * the letter histogram is a reused int[26] that is cleared on the way out,
+ * so an instance must be confined to a single thread - use {@link #get()} for a thread-local one
+ *
+ * the score matches the LinkedHashMap version: letters beyond the bag count are blanks (worth 0),
+ * more than 2 blanks rejects the word, the best letter is doubled, and 7 letter words get 50 more.
+ * membership in the dictionary is the caller's responsibility
+ *
+ * @author nqzero
+ */
+public class ScrabbleScorer {
+    /** the score returned for a word that can't be written with the available letters */
+    public static final int REJECTED = -1;
+
+    private static final ThreadLocal<ScrabbleScorer> local = ThreadLocal.withInitial(ScrabbleScorer::new);
+
+    /** the scorer confined to the calling thread (or fiber) */
+    public static ScrabbleScorer get() {
+        return local.get();
+    }
+
+    private final int [] histo = new int[26];
+
+    /**
+     * an upper bound on the score of any word of at most maxLength letters,
+     * ie the best letters in the bag, the best letter doubled and the 7 letter bonus
+     */
+    public static int maxScore(int maxLength) {
+        int [] left = scrabbleAvailableLetters.clone();
+        int sum = 0, max = 0;
+        for (int ii=0; ii < maxLength; ii++) {
+            int best = -1;
+            for (int letter=0; letter < 26; letter++)
+                if (left[letter] > 0 && (best < 0 || letterScores[letter] > letterScores[best]))
+                    best = letter;
+            if (best < 0) break;
+            left[best]--;
+            sum += letterScores[best];
+            max = Math.max(max,letterScores[best]);
+        }
+        return 2*(sum + max) + (maxLength >= 7 ? 50:0);
+    }
+
+    /**
+     * score a lower case word
+     * @return the score, or REJECTED if more than 2 blanks are needed
+     */
+    public int score(CharSequence word) {
+        int len = word.length();
+        int blanks = 0, sum = 0, max = 0, ii = 0;
+        for (; ii < len; ii++) {
+            int letter = word.charAt(ii) - 'a';
+            int value = letterScores[letter];
+            if (++histo[letter] > scrabbleAvailableLetters[letter]) {
+                if (++blanks > 2)
+                    break;
+            }
+            else
+                sum += value;
+            if (value > max) max = value;
+        }
+        // only the letters that were counted need to be cleared, including the one we broke on
+        for (int jj = ii < len ? ii : len-1; jj >= 0; jj--)
+            histo[word.charAt(jj) - 'a'] = 0;
+        if (blanks > 2)
+            return REJECTED;
+        return 2*(sum + max) + (len==7 ? 50:0);
+    }
+
+    /**
+     * score a lower case word stored in a byte arena, eg a {@link WordArena} slice
+     * @return the score, or REJECTED if more than 2 blanks are needed
+     */
+    public int score(byte [] arena,int offset,int len) {
+        int blanks = 0, sum = 0, max = 0, ii = 0;
+        for (; ii < len; ii++) {
+            int letter = arena[offset+ii] - 'a';
+            int value = letterScores[letter];
+            if (++histo[letter] > scrabbleAvailableLetters[letter]) {
+                if (++blanks > 2)
+                    break;
+            }
+            else
+                sum += value;
+            if (value > max) max = value;
+        }
+        for (int jj = ii < len ? ii : len-1; jj >= 0; jj--)
+            histo[arena[offset+jj] - 'a'] = 0;
+        if (blanks > 2)
+            return REJECTED;
+        return 2*(sum + max) + (len==7 ? 50:0);
+    }
+
+    /**
+     * score a word packed by {@link PackedWords#pack}, reading the letters straight from the bits
+     * @return the score, or REJECTED if more than 2 blanks are needed
+     */
+    public int score(long packed) {
+        int blanks = 0, sum = 0, max = 0, len = 0;
+        for (long bits = packed; bits != 0; bits >>>= 5, len++) {
+            int letter = (int) (bits & 31) - 1;
+            int value = letterScores[letter];
+            if (++histo[letter] > scrabbleAvailableLetters[letter]) {
+                if (++blanks > 2) {
+                    len++;
+                    break;
+                }
+            }
+            else
+                sum += value;
+            if (value > max) max = value;
+        }
+        for (int ii=0; ii < len; ii++)
+            histo[PackedWords.letter(packed,ii)] = 0;
+        if (blanks > 2)
+            return REJECTED;
+        return 2*(sum + max) + (len==7 ? 50:0);
+    }
+}
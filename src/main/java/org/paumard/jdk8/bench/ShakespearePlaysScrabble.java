@@ -17,11 +17,14 @@
 
 package org.paumard.jdk8.bench;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 
 
 @State(Scope.Benchmark)
@@ -39,11 +42,54 @@ public class ShakespearePlaysScrabble {
     
     public Set<String> scrabbleWords = null ;
     public Set<String> shakespeareWords = null ;
+
+    /**
+     * the dictionary implementation, -Ddict=hash (the default), -Ddict=mph for a minimal perfect hash,
+     * or -Ddict=snapshot to probe a memory mapped binary snapshot
+     */
+    public static String dict = System.getProperty("dict", "hash") ;
+
+    /** the false positive rate of an optional bloom filter in front of the dictionary, eg -Dbloom=0.01 */
+    public static String bloom = System.getProperty("bloom") ;
+
+    /** use the LetterSignature fast path for the blank check where it's supported, -Dsignature */
+    public static boolean signature = System.getProperty("signature") != null ;
     
     @Setup
     public void init() {
-    	scrabbleWords = Util.readScrabbleWords() ;
+    	scrabbleWords = loadDictionary(dict) ;
+    	if (bloom != null)
+    	    scrabbleWords = new PrefilteredSet(scrabbleWords, Double.parseDouble(bloom)) ;
     	shakespeareWords = Util.readShakespeareWords() ;
     }
 
+    @TearDown
+    public void report() {
+        if (scrabbleWords instanceof PrefilteredSet)
+            System.out.println("\n" + ((PrefilteredSet) scrabbleWords).stats()) ;
+        if (signature) {
+            // the words each benchmark checks, ie the playable ones
+            List<String> checked = new ArrayList<>() ;
+            for (String word : shakespeareWords)
+                if (scrabbleWords.contains(word))
+                    checked.add(word) ;
+            System.out.println("\n" + LetterSignature.stats(checked)) ;
+        }
+    }
+
+    public static Set<String> loadDictionary(String kind) {
+        if (kind.equals("snapshot"))
+            return Util.mapScrabbleSnapshot() ;
+        return dictionary(Util.readScrabbleWords(), kind) ;
+    }
+
+    public static Set<String> dictionary(Set<String> words, String kind) {
+        switch (kind) {
+            case "hash": return words ;
+            case "mph": return new PerfectHashSet(words) ;
+            case "snapshot": return Util.mapScrabbleSnapshot() ;
+            default: throw new IllegalArgumentException("unknown dictionary: " + kind) ;
+        }
+    }
+
 }
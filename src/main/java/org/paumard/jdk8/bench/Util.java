@@ -18,8 +18,12 @@
 package org.paumard.jdk8.bench;
 
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -48,4 +52,72 @@ public class Util {
         
         return shakespeareWords ;
 	}
+
+	/** the dictionary as a byte arena, without creating a String per word */
+	public static WordArena mapScrabbleWords() {
+		return mapWords(Paths.get("files", "ospd.txt")) ;
+	}
+
+	/** the distinct shakespeare words as a byte arena, without creating a String per word */
+	public static WordArena mapShakespeareWords() {
+		return mapWords(Paths.get("files", "words.shakespeare.txt")) ;
+	}
+
+	/** memory map a file of words, one per line, and copy the distinct lower cased words into an arena */
+	public static WordArena mapWords(Path path) {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return WordArena.of(channel.map(MapMode.READ_ONLY, 0, channel.size()), true) ;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return new WordArena(new byte[0], new int[1], 0) ;
+		}
+	}
+
+	/**
+	 * the dictionary, probed in place in a memory mapped snapshot that's written on the first run.
+	 * falls back to the text file if the snapshot can't be used
+	 */
+	public static Set<String> mapScrabbleSnapshot() {
+		try {
+			return DictionarySnapshot.map(Paths.get("files", "ospd.txt"), Paths.get("target", "ospd.snapshot")) ;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return readScrabbleWords() ;
+		}
+	}
+
+	/** write the dictionary snapshot if it's missing or stale, so a later map doesn't pay for it */
+	public static void refreshScrabbleSnapshot() {
+		try {
+			DictionarySnapshot.refresh(Paths.get("files", "ospd.txt"), Paths.get("target", "ospd.snapshot")) ;
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * a seeded 64 bit hash of the characters of a word, for the dictionary structures
+	 * that need more bits (or more independent bits) than String.hashCode provides
+	 */
+	public static long hash64(CharSequence word, long seed) {
+		long hash = seed ^ 0xcbf29ce484222325L ;
+		for (int ii = 0; ii < word.length(); ii++)
+			hash = (hash ^ word.charAt(ii)) * 0x100000001b3L ;
+		return mix64(hash) ;
+	}
+
+	/** the same hash as hash64(CharSequence,long) for a word of ascii bytes */
+	public static long hash64(byte [] arena, int start, int end, long seed) {
+		long hash = seed ^ 0xcbf29ce484222325L ;
+		for (int ii = start; ii < end; ii++)
+			hash = (hash ^ arena[ii]) * 0x100000001b3L ;
+		return mix64(hash) ;
+	}
+
+	/** the murmur3 finalizer, spreads every input bit across the whole long */
+	public static long mix64(long hash) {
+		hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL ;
+		hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L ;
+		return hash ^ (hash >>> 33) ;
+	}
 }
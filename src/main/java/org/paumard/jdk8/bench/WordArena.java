@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.paumard.jdk8.bench;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * a list of words stored as slices of a single byte[], word ii being
+ * arena[offsets[ii]] to arena[offsets[ii+1]-1], so no String is needed to hold or score a word
+ *
+ * @author nqzero
+ */
+public class WordArena {
+    private final byte [] arena;
+    private final int [] offsets;
+    private final int num;
+
+    WordArena(byte [] arena,int [] offsets,int num) {
+        this.arena = arena;
+        this.offsets = offsets;
+        this.num = num;
+    }
+
+    /**
+     * split the lines of an ascii buffer into words, lowercasing the bytes as they're copied
+     * into the arena and skipping empty lines
+     * @param distinct drop repeated words, like the Set based loaders
+     */
+    public static WordArena of(ByteBuffer buffer,boolean distinct) {
+        int limit = buffer.limit();
+        byte [] arena = new byte[limit];
+        int [] offsets = new int[1024];
+        int [] table = distinct ? new int[1<<12] : null;
+        int num = 0, end = 0;
+        for (int pos = buffer.position(); pos < limit;) {
+            int start = end;
+            for (; pos < limit; pos++) {
+                byte val = buffer.get(pos);
+                if (val=='\n') break;
+                if (val=='\r') continue;
+                arena[end++] = val >= 'A' && val <= 'Z' ? (byte) (val + 'a' - 'A') : val;
+            }
+            pos++;
+            if (end==start) continue;
+            if (num+2 > offsets.length)
+                offsets = Arrays.copyOf(offsets,offsets.length*2);
+            offsets[num] = start;
+            offsets[num+1] = end;
+            if (distinct) {
+                if (2*(num+1) > table.length)
+                    table = rehash(arena,offsets,num,table.length*2);
+                if (! insert(arena,offsets,table,num)) {
+                    end = start;
+                    continue;
+                }
+            }
+            num++;
+        }
+        return new WordArena(Arrays.copyOf(arena,end),Arrays.copyOf(offsets,num+1),num);
+    }
+
+    /** add word index to the table of word indices plus one, unless an equal word is already there */
+    private static boolean insert(byte [] arena,int [] offsets,int [] table,int index) {
+        int start = offsets[index], len = offsets[index+1] - start, mask = table.length-1;
+        for (int ii = (int) Util.hash64(arena,start,start+len,0) & mask; ; ii = (ii+1) & mask) {
+            int other = table[ii] - 1;
+            if (other < 0) {
+                table[ii] = index+1;
+                return true;
+            }
+            int ostart = offsets[other];
+            if (offsets[other+1] - ostart==len && equals(arena,start,ostart,len))
+                return false;
+        }
+    }
+
+    private static boolean equals(byte [] arena,int start1,int start2,int len) {
+        for (int ii=0; ii < len; ii++)
+            if (arena[start1+ii] != arena[start2+ii]) return false;
+        return true;
+    }
+
+    private static int [] rehash(byte [] arena,int [] offsets,int num,int cap) {
+        int [] table = new int[cap];
+        for (int ii=0; ii < num; ii++)
+            insert(arena,offsets,table,ii);
+        return table;
+    }
+
+    public int size() {
+        return num;
+    }
+
+    /** the backing bytes, shared and not copied */
+    public byte [] arena() {
+        return arena;
+    }
+
+    public int offset(int index) {
+        return offsets[index];
+    }
+
+    public int length(int index) {
+        return offsets[index+1] - offsets[index];
+    }
+
+    /** materialize a word, eg for the final results */
+    public String word(int index) {
+        return new String(arena,offsets[index],length(index),StandardCharsets.ISO_8859_1);
+    }
+
+    /** the heap used by the arena and offsets */
+    public long bytes() {
+        return arena.length + 4L * offsets.length;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.paumard.jdk8.packed;
+
+import java.util.*;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.paumard.jdk8.bench.LongHashSet;
+import org.paumard.jdk8.bench.PackedWords;
+import org.paumard.jdk8.bench.ScrabbleScorer;
+import org.paumard.jdk8.bench.ShakespearePlaysScrabble;
+
+import static org.paumard.jdk8.bench.ScrabbleScorer.REJECTED;
+
+/**
+ * Shakespeare plays Scrabble with words packed into longs.
+ * the dictionary is a primitive long set and the corpus a long[], so the hot loop never
+ * touches a String. words too long to pack go through an overflow path using the original sets,
+ * and only the words in the best 3 scores are unpacked at the end
+ *
+ * @author nqzero
+ */
+public class ShakespearePlaysScrabbleWithPackedWords extends ShakespearePlaysScrabble {
+    LongHashSet packedDictionary;
+    Set<String> overflowDictionary;
+    long [] corpus;
+    String [] overflow;
+    long [] accepted;
+    int [] scores;
+
+    @Setup
+    public void pack() {
+        packedDictionary = new LongHashSet(scrabbleWords.size());
+        overflowDictionary = new HashSet<>();
+        for (String word : scrabbleWords) {
+            long packed = PackedWords.pack(word);
+            if (packed==PackedWords.OVERFLOW)
+                overflowDictionary.add(word);
+            else
+                packedDictionary.add(packed);
+        }
+        long [] packedCorpus = new long[shakespeareWords.size()];
+        List<String> longWords = new ArrayList<>();
+        int num = 0;
+        for (String word : shakespeareWords) {
+            long packed = PackedWords.pack(word);
+            if (packed==PackedWords.OVERFLOW)
+                longWords.add(word);
+            else
+                packedCorpus[num++] = packed;
+        }
+        corpus = Arrays.copyOf(packedCorpus,num);
+        overflow = longWords.toArray(new String[0]);
+        accepted = new long[corpus.length];
+        scores = new int[corpus.length];
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(
+        iterations=20
+    )
+    @Measurement(
+        iterations=20
+    )
+    @Fork(5)
+    public List<Entry<Integer, List<String>>> measureThroughput() {
+        ScrabbleScorer scorer = ScrabbleScorer.get();
+        int num = 0;
+        for (long word : corpus) {
+            if (packedDictionary.contains(word)) {
+                int score = scorer.score(word);
+                if (score != REJECTED) {
+                    accepted[num] = word;
+                    scores[num++] = score;
+                }
+            }
+        }
+
+        TreeMap<Integer, List<String>> treemap = new TreeMap<Integer, List<String>>(Comparator.reverseOrder());
+        for (String word : overflow) {
+            if (overflowDictionary.contains(word)) {
+                int score = scorer.score(word);
+                if (score != REJECTED)
+                    treemap.computeIfAbsent(score,key -> new ArrayList<>()).add(word);
+            }
+        }
+        return best(num,treemap);
+    }
+
+    /** merge the packed results with the overflow ones, unpacking only the words in the best 3 scores */
+    List<Entry<Integer, List<String>>> best(int num,TreeMap<Integer, List<String>> treemap) {
+        int [] top = new int[3];
+        Arrays.fill(top,REJECTED);
+        for (int ii=0; ii < num; ii++)
+            insert(top,scores[ii]);
+        for (Integer score : treemap.keySet())
+            insert(top,score);
+
+        List<Entry<Integer, List<String>>> list = new ArrayList<Entry<Integer, List<String>>>();
+        for (int score : top) {
+            if (score==REJECTED) break;
+            List<String> words = new ArrayList<>();
+            for (int ii=0; ii < num; ii++)
+                if (scores[ii]==score)
+                    words.add(PackedWords.unpack(accepted[ii]));
+            words.addAll(treemap.getOrDefault(score,Collections.emptyList()));
+            list.add(new SimpleImmutableEntry<>(score,words));
+        }
+        return list;
+    }
+
+    /** insert a score into the descending array of distinct best scores */
+    static void insert(int [] top,int score) {
+        for (int ii=0; ii < top.length; ii++) {
+            if (score==top[ii]) return;
+            if (score > top[ii]) {
+                System.arraycopy(top,ii,top,ii+1,top.length-ii-1);
+                top[ii] = score;
+                return;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        ShakespearePlaysScrabbleWithPackedWords s = new ShakespearePlaysScrabbleWithPackedWords();
+        s.init();
+        s.pack();
+        System.out.println(s.measureThroughput());
+    }
+}
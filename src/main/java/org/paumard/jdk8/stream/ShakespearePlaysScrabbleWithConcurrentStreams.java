@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.paumard.jdk8.stream;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * the parallel streams, run in a pool of the given parallelism, comparing the merge based collectors
+ * with an unordered concurrent one, where every leaf task inserts into a single shared skip list.
+ * the inherited benchmarks are overridden to run in the pool too, so all three scale with the parallelism.
+ * the concurrent result has the same scores, but the words of a score are in no particular order
+ *
+ * @author nqzero
+ */
+public class ShakespearePlaysScrabbleWithConcurrentStreams extends ShakespearePlaysScrabbleWithParallelStreams {
+    @Param({"1","2","4","8"})
+    public int parallelism = Runtime.getRuntime().availableProcessors();
+    ForkJoinPool pool;
+
+    @Setup
+    public void start() {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown
+    public void close() {
+        pool.shutdown();
+    }
+
+    /** run task in the pool, so the parallel stream forks into it instead of the common pool */
+    <TT> TT inPool(Callable<TT> task) {
+        try {
+            return pool.submit(task).get();
+        }
+        catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * group the words into a concurrent skip list, then keep the 3 best
+     */
+    static List<Entry<Integer, List<String>>> groupConcurrent(Stream<String> words,Function<String, Integer> score) {
+        return words.unordered()
+                    .collect(
+                       Collectors.groupingByConcurrent(
+                          score,
+                          () -> new ConcurrentSkipListMap<Integer, List<String>>(Comparator.reverseOrder()),
+                          Collectors.toList()
+                       )
+                    )
+                    .entrySet()
+                    .stream()
+                    .limit(3)
+                    .collect(Collectors.toList()) ;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(
+		iterations=20
+    )
+    @Measurement(
+    	iterations=20
+    )
+    @Fork(5)
+    public List<Entry<Integer, List<String>>> measureThroughput() {
+        return inPool(super::measureThroughput);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(
+		iterations=20
+    )
+    @Measurement(
+    	iterations=20
+    )
+    @Fork(5)
+    public List<Entry<Integer, List<String>>> measureTopK() {
+        return inPool(super::measureTopK);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(
+		iterations=20
+    )
+    @Measurement(
+    	iterations=20
+    )
+    @Fork(5)
+    public List<Entry<Integer, List<String>>> measureConcurrent() {
+        return inPool(() -> play(ShakespearePlaysScrabbleWithConcurrentStreams::groupConcurrent));
+    }
+
+    public static void main(String[] args) throws Exception {
+        ShakespearePlaysScrabbleWithConcurrentStreams s = new ShakespearePlaysScrabbleWithConcurrentStreams();
+        s.init();
+        s.start();
+        System.out.println(s.measureThroughput());
+        System.out.println(s.measureTopK());
+        System.out.println(s.measureConcurrent());
+        s.close();
+    }
+}
@@ -18,7 +18,9 @@
 package org.paumard.jdk8.stream;
 
 import org.openjdk.jmh.annotations.*;
+import org.paumard.jdk8.bench.LetterSignature;
 import org.paumard.jdk8.bench.ShakespearePlaysScrabble;
+import org.paumard.jdk8.util.TopKCollector;
 
 import java.util.Comparator;
 import java.util.List;
@@ -45,6 +47,46 @@ public abstract class ShakespearePlaysScrabbleWithStreams extends ShakespearePla
     )
     @Fork(5)
     public List<Entry<Integer, List<String>>> measureThroughput() {
+        return play(ShakespearePlaysScrabbleWithStreams::groupAll);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(
+		iterations=20
+    )
+    @Measurement(
+    	iterations=20
+    )
+    @Fork(5)
+    public List<Entry<Integer, List<String>>> measureTopK() {
+        return play((words,score) -> words.collect(TopKCollector.topK(3,score)));
+    }
+
+    /**
+     * group every word by score in a TreeMap, then keep the 3 best
+     */
+    static List<Entry<Integer, List<String>>> groupAll(Stream<String> words,Function<String, Integer> score) {
+        return words.collect(
+                       Collectors.groupingBy(
+                          score, 
+                          () -> new TreeMap<Integer, List<String>>(Comparator.reverseOrder()),
+                          Collectors.toList()
+                       )
+                    )
+                    .entrySet()
+                    .stream()
+                    .limit(3)
+                    .collect(Collectors.toList()) ;
+    }
+
+    /**
+     * score the words of Shakespeare that are in the dictionary and can be written
+     * @param best collects the best 3 scores from the stream of accepted words and the score function
+     */
+    List<Entry<Integer, List<String>>> play(
+            BiFunction<Stream<String>, Function<String, Integer>, List<Entry<Integer, List<String>>>> best) {
 
         // Function to compute the score of a given word
         IntUnaryOperator scoreOfALetter = letter -> letterScores[letter - 'a'];
@@ -86,7 +128,13 @@ public abstract class ShakespearePlaysScrabbleWithStreams extends ShakespearePla
                             .sum();
                 
         // can a word be written with 2 blanks?
-        Predicate<String> checkBlanks = word -> nBlanks.apply(word) <= 2;
+        //   optionally decided by the letter signature, falling back to the histogram
+        Predicate<String> checkBlanks = signature ?
+                word -> {
+                    int quick = LetterSignature.check(word);
+                    return quick == LetterSignature.UNKNOWN ? nBlanks.apply(word) <= 2 : quick == LetterSignature.ACCEPT;
+                } :
+                word -> nBlanks.apply(word) <= 2;
         
         // score taking blanks into account
         Function<String, Integer> score2 =
@@ -118,26 +166,13 @@ public abstract class ShakespearePlaysScrabbleWithStreams extends ShakespearePla
                2*(score2.apply(word) + bonusForDoubleLetter.applyAsInt(word))
                + (word.length() == 7 ? 50 : 0);
 
-        Function<Function<String, Integer>, Map<Integer, List<String>>> buildHistoOnScore =
-                score -> buildShakerspeareWordsStream()
+        Stream<String> accepted = buildShakerspeareWordsStream()
                                 .filter(scrabbleWords::contains)
                                 // .filter(canWrite)    // filter out the words that needs blanks
-                                .filter(checkBlanks) // filter out the words that needs more than 2 blanks
-                                .collect(
-                                   Collectors.groupingBy(
-                                      score, 
-                                      () -> new TreeMap<>(Comparator.reverseOrder()),
-                                      Collectors.toList()
-                                   )
-                                );
+                                .filter(checkBlanks) ; // filter out the words that needs more than 2 blanks
 
-                
         // best key / value pairs
-        List<Entry<Integer, List<String>>> finalList =
-        		buildHistoOnScore.apply(score3).entrySet()
-		    		.stream()
-		    		.limit(3)
-		    		.collect(Collectors.toList()) ;
+        List<Entry<Integer, List<String>>> finalList = best.apply(accepted, score3) ;
         
 //        System.out.println(finalList) ;
         
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.paumard.jdk8.trie;
+
+import java.util.*;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.paumard.jdk8.bench.DoubleArrayTrie;
+import org.paumard.jdk8.bench.ScrabbleScorer;
+import org.paumard.jdk8.bench.ShakespearePlaysScrabble;
+
+import static org.paumard.jdk8.bench.ScrabbleScorer.REJECTED;
+
+/**
+ * Shakespeare plays Scrabble with a double-array trie, which checks membership and
+ * scores the word in a single walk, compared with a dictionary lookup followed by the scoring kernel
+ *
+ * @author nqzero
+ */
+public class ShakespearePlaysScrabbleWithTrie extends ShakespearePlaysScrabble {
+    DoubleArrayTrie trie;
+    int [] histo = new int[26];
+
+    @Setup
+    public void build() {
+        trie = new DoubleArrayTrie(scrabbleWords);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(
+        iterations=20
+    )
+    @Measurement(
+        iterations=20
+    )
+    @Fork(5)
+    public List<Entry<Integer, List<String>>> measureThroughput() {
+        TreeMap<Integer, List<String>> treemap = new TreeMap<Integer, List<String>>(Comparator.reverseOrder());
+        for (String word : shakespeareWords)
+            add(treemap,trie.score(word,histo),word);
+        return best(treemap);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(
+        iterations=20
+    )
+    @Measurement(
+        iterations=20
+    )
+    @Fork(5)
+    public List<Entry<Integer, List<String>>> measureHashSet() {
+        TreeMap<Integer, List<String>> treemap = new TreeMap<Integer, List<String>>(Comparator.reverseOrder());
+        ScrabbleScorer scorer = ScrabbleScorer.get();
+        for (String word : shakespeareWords)
+            if (scrabbleWords.contains(word))
+                add(treemap,scorer.score(word),word);
+        return best(treemap);
+    }
+
+    static void add(TreeMap<Integer, List<String>> treemap,int score,String word) {
+        if (score==REJECTED) return;
+        List<String> list = treemap.get(score);
+        if (list == null) {
+            list = new ArrayList<>();
+            treemap.put(score, list);
+        }
+        list.add(word);
+    }
+
+    static List<Entry<Integer, List<String>>> best(TreeMap<Integer, List<String>> treemap) {
+        List<Entry<Integer, List<String>>> list = new ArrayList<Entry<Integer, List<String>>>();
+        int i = 4;
+        for (Entry<Integer, List<String>> e : treemap.entrySet()) {
+            if (--i == 0)
+                break;
+            list.add(e);
+        }
+        return list;
+    }
+
+    public static void main(String[] args) throws Exception {
+        ShakespearePlaysScrabbleWithTrie s = new ShakespearePlaysScrabbleWithTrie();
+        s.init();
+        s.build();
+        System.out.println(s.measureThroughput());
+        System.out.println(s.measureHashSet());
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.paumard.jdk8.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+/**
+ * a collector that groups elements by an integer score, keeping only the k best scores.
+ * the result is the same as grouping into a reverse ordered TreeMap and taking the first k entries,
+ * but an accumulator never holds more than k groups, so a parallel stream doesn't build and merge
+ * a full map at every split. groups keep the encounter order, like Collectors.groupingBy
+ *
+ * @author nqzero
+ */
+public class TopKCollector<T> {
+    final int k;
+    final TreeMap<Integer, List<T>> best = new TreeMap<>(Comparator.reverseOrder());
+
+    TopKCollector(int k) {
+        this.k = k;
+    }
+
+    /**
+     * a collector of the groups of elements with the k best scores, best first
+     */
+    public static <T> Collector<T, ?, List<Entry<Integer, List<T>>>> topK(int k,Function<? super T, Integer> score) {
+        return Collector.of(
+                () -> new TopKCollector<T>(k),
+                (top,element) -> top.add(score.apply(element),element),
+                TopKCollector::combine,
+                TopKCollector::finish);
+    }
+
+    /** the group for key, or null if key can't be one of the k best */
+    List<T> group(Integer key) {
+        List<T> list = best.get(key);
+        if (list != null) return list;
+        if (best.size()==k && key < best.lastKey()) return null;
+        best.put(key,list = new ArrayList<>());
+        if (best.size() > k)
+            best.pollLastEntry();
+        return list;
+    }
+
+    void add(Integer key,T element) {
+        List<T> list = group(key);
+        if (list != null) list.add(element);
+    }
+
+    /** append the groups of right, which follows this in encounter order */
+    TopKCollector<T> combine(TopKCollector<T> right) {
+        for (Entry<Integer, List<T>> entry : right.best.entrySet()) {
+            List<T> list = group(entry.getKey());
+            if (list == null) break;
+            list.addAll(entry.getValue());
+        }
+        return this;
+    }
+
+    List<Entry<Integer, List<T>>> finish() {
+        return new ArrayList<>(best.entrySet());
+    }
+}
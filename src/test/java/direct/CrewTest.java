@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2019 Jose Paumard, nqzero
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package direct;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * join must not return until every task of the invocation has run, whether or not the workers
+ * are already parked at the gate when start is called
+ *
+ * @author nqzero
+ */
+public class CrewTest {
+    static final int numTasks = 4;
+    static final int numLoops = 1000;
+
+    Crew hire(AtomicInteger done) {
+        Runnable [] tasks = new Runnable[numTasks];
+        for (int ii=0; ii < numTasks; ii++)
+            tasks[ii] = () -> {
+                Thread.yield();
+                done.incrementAndGet();
+            };
+        return new Crew(tasks);
+    }
+
+    void loop(Crew crew,AtomicInteger done) throws InterruptedException {
+        for (int ii=1; ii <= numLoops; ii++) {
+            crew.start();
+            crew.join();
+            assertEquals("tasks done at invocation " + ii,ii*numTasks,done.get());
+        }
+        crew.close();
+        for (Thread thread : crew.threads)
+            assertEquals(false,thread.isAlive());
+    }
+
+    @Test(timeout=60000)
+    public void startRightAfterHire() throws InterruptedException {
+        AtomicInteger done = new AtomicInteger();
+        loop(hire(done),done);
+    }
+
+    @Test(timeout=60000)
+    public void startWithWorkersParked() throws InterruptedException {
+        AtomicInteger done = new AtomicInteger();
+        Crew crew = hire(done);
+        Thread.sleep(100);
+        loop(crew,done);
+    }
+}